@@ -1,3 +1,4 @@
+import UI.AI.UcciEngine;
 import UI.Models.AudioModel;
 import UI.Models.FontManager;
 import UI.Models.LoginState;
@@ -11,7 +12,12 @@ import java.awt.*;
 
 public class MainApplication {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // -ucci：以 UCCI 协议引擎运行，不启动界面
+        if (args.length > 0 && "-ucci".equals(args[0])) {
+            UcciEngine.main(args);
+            return;
+        }
         Application.launch(JavaFXApp.class, args);
     }
 
@@ -2,407 +2,927 @@ package UI.AI;
 
 import UI.MainGameUI.ChessPiece;
 import UI.MainGameUI.GameMove;
-import UI.MainGameUI.MoveRuleValidator;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static UI.AI.Board.*;
 
 public class AILogic {
 
-    // 棋子价值常量
-    private static final int KING_VALUE = 10000;
-    private static final int ROOK_VALUE = 90;
-    private static final int KNIGHT_VALUE = 40;
-    private static final int CANNON_VALUE = 45;
-    private static final int ADVISOR_VALUE = 20;
-    private static final int BISHOP_VALUE = 20;
-    private static final int PAWN_VALUE = 10;
-    private static final int PROMOTED_PAWN_BONUS = 20;
+    // Alpha-Beta剪枝使用的极值（置换表中分数按 16 位保存，不能超过 short 范围）
+    private static final int INF = 32000;
+    // 被将死时的分数，按距根节点的层数修正，越快将死分数越高
+    private static final int MATE_VALUE = 30000;
+    private static final int MATE_BOUND = MATE_VALUE - 1000;
+
+    // 默认置换表大小（MB）
+    public static final int DEFAULT_HASH_SIZE_MB = 16;
+
+    // 最大搜索层数
+    private static final int MAX_PLY = 64;
+
+    // 默认搜索线程数：使用全部 CPU 核心
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // 在开局库的候选走法中按权重随机选择时使用
+    private final Random random = new Random();
+
+    // 每一层预先分配的走法数组，搜索过程中不再创建走法对象
+    private final int[][] moveStack = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    // 与 moveStack 对应的走法排序分数
+    private final int[][] scoreStack = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    // 走法排序分数：置换表走法 > 吃子（MVV-LVA）> 杀手走法 > 历史分数
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int KILLER_SCORE = 1 << 22;
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    // 每层两个杀手走法（只保存起点和终点）
+    private final int[][] killers = new int[MAX_PLY][2];
+    // 历史表，[棋子编码][终点格子]，不吃子的走法产生截断时按深度加分
+    private final int[][] history = new int[24][256];
+
+    // Beta 截断次数，以及第一个走法就截断的次数（衡量走法排序质量，汇总到 SearchStats）
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
 
-    // Alpha-Beta剪枝使用的极值
-    private static final int INF = 999999;
+    // 置换表，同一局游戏的多次搜索之间保留，所有搜索线程共享（无锁）
+    private final TranspositionTable transpositionTable;
+
+    // Lazy SMP 辅助线程：每个辅助线程是一个共享置换表的 AILogic，只在主实例中创建
+    private AILogic[] helpers = new AILogic[0];
+    private ExecutorService helperPool;
+    // 辅助线程编号，主线程为 0
+    private final int threadId;
+
+    // 本次搜索访问的节点数，以及其中的静态搜索节点数
+    private long nodes;
+    private long qnodes;
+    // 置换表查询和命中次数
+    private long ttProbes;
+    private long ttHits;
+    // 选择性深度：到达的最大层数
+    private int selDepth;
+    // 主线程每次迭代的耗时
+    private final long[] iterationTimes = new long[SearchLimits.MAX_DEPTH];
+    // 最后一次搜索的统计，搜索开始前为 null
+    private volatile SearchStats lastStats;
+
+    // 搜索预算和停止标志
+    private long startTime;
+    private volatile long deadline;
+    private long timeLimitMs;
+    private long nodeLimit;
+    private volatile boolean stopped;
+
+    // 后台思考：搜索不受时间限制，直到 ponderHit() 或 stop()
+    private volatile boolean pondering;
+    // 在后台思考开始之前就调用了 stop()，该次后台思考直接放弃
+    private boolean stopPending;
+
+    // 开局库，为 null 时不使用
+    private volatile OpeningBook openingBook;
+    // 每次迭代完成时通知的监听器，为 null 时不通知
+    private volatile SearchListener listener;
+    // 残局库，为 null 时不使用；辅助线程在每次搜索开始时取得主实例的引用
+    private volatile EndgameTablebase tablebase;
+
+    // 最后一次完成的根节点搜索分数
+    private int rootScore;
+
+    public AILogic() {
+        this(DEFAULT_HASH_SIZE_MB, DEFAULT_THREADS);
+    }
 
     /**
-     * 获取AI最佳移动
-     * 算法：Minimax + Alpha-Beta剪枝
-     *
-     * @param board 当前棋盘状态
-     * @param depth 搜索深度
-     * @param aiColor AI执子颜色
-     * @param validator 移动规则验证器
-     * @return 最佳移动
+     * @param hashSizeMb 置换表大小（MB）
      */
-    public GameMove getBestMoveUsingMinimax(ChessPiece[] board, int depth, String aiColor, MoveRuleValidator validator) {
-        List<GameMove> moves = generateLegalMoves(board, aiColor, validator);
-        if (moves.isEmpty()) return null;
-
-        // 对移动进行排序，提高Alpha-Beta剪枝效率
-        moves.sort((m1, m2) -> {
-            // 优先考虑吃子移动
-            if (m1.capturedPiece != null && m2.capturedPiece == null) return -1;
-            if (m1.capturedPiece == null && m2.capturedPiece != null) return 1;
-            // 都吃子或都不吃子，保持原有顺序
-            return 0;
-        });
-
-        GameMove bestMove = null;
-        int alpha = -INF;
-        int beta = INF;
+    public AILogic(int hashSizeMb) {
+        this(hashSizeMb, DEFAULT_THREADS);
+    }
 
-        // 对于每个可能的移动
-        for (GameMove move : moves) {
-            // 模拟移动
-            ChessPiece[] nextBoard = makeMove(board, move);
-
-            // 必杀剪枝：如果这步能吃掉对方老将，直接返回
-            if (move.capturedPiece != null && 
-                (move.capturedPiece.type.equals("帅") || move.capturedPiece.type.equals("将"))) {
-                return move;
-            }
+    /**
+     * @param hashSizeMb 置换表大小（MB）
+     * @param threads 搜索线程数（包括主线程）
+     */
+    public AILogic(int hashSizeMb, int threads) {
+        this.transpositionTable = TranspositionTable.create(hashSizeMb);
+        this.threadId = 0;
+        setThreadCount(threads);
+    }
 
-            // 递归搜索评估分数
-            int evalScore = minimax(nextBoard, depth - 1, false, alpha, beta, aiColor, validator);
+    // 辅助线程使用的构造函数，与主实例共享置换表
+    private AILogic(TranspositionTable transpositionTable, int threadId) {
+        this.transpositionTable = transpositionTable;
+        this.threadId = threadId;
+    }
 
-            // 更新最佳移动
-            if (bestMove == null || evalScore > alpha) {
-                alpha = evalScore;
-                bestMove = move;
-            }
+    /**
+     * 设置搜索线程数（包括主线程），1 表示单线程搜索。不能在搜索进行时调用。
+     */
+    public synchronized void setThreadCount(int threads) {
+        threads = Math.max(1, threads);
+        if (threads == helpers.length + 1) return;
+
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        helpers = new AILogic[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new AILogic(transpositionTable, i + 1);
         }
+        if (helpers.length > 0) {
+            // 守护线程，不阻止程序退出
+            helperPool = Executors.newFixedThreadPool(helpers.length, runnable -> {
+                Thread thread = new Thread(runnable, "AI-Helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
 
-        return bestMove;
+    /**
+     * 停止搜索并释放辅助线程（对局结束或替换这个实例时调用），之后仍可以单线程搜索
+     */
+    public synchronized void shutdown() {
+        stop();
+        if (helperPool != null) {
+            // 已提交的辅助搜索看到停止标志后很快结束，线程随后退出
+            helperPool.shutdown();
+            helperPool = null;
+        }
+        helpers = new AILogic[0];
+    }
+
+    public int getThreadCount() {
+        return helpers.length + 1;
     }
 
     /**
-     * Minimax算法带Alpha-Beta剪枝
+     * 获取AI最佳移动（固定深度）
      *
-     * @param board 当前棋盘状态
+     * @param pieces 当前棋盘状态
      * @param depth 搜索深度
-     * @param isMaximizing 是否最大化玩家（AI）
-     * @param alpha Alpha值
-     * @param beta Beta值
      * @param aiColor AI执子颜色
-     * @param validator 移动规则验证器
-     * @return 评估分数
+     * @return 最佳移动
      */
-    private int minimax(ChessPiece[] board, int depth, boolean isMaximizing, int alpha, int beta, String aiColor, MoveRuleValidator validator) {
-        // 递归终止条件：达到搜索深度或游戏结束
-        if (depth == 0 || isGameOver(board)) {
-            return evaluateBoard(board, aiColor);
-        }
-
-        String turn = isMaximizing ? aiColor : (aiColor.equals("RED") ? "BLACK" : "RED");
-        List<GameMove> moves = generateLegalMoves(board, turn, validator);
-        
-        // 对移动进行排序，提高Alpha-Beta剪枝效率
-        moves.sort((m1, m2) -> {
-            // 优先考虑吃子移动
-            if (m1.capturedPiece != null && m2.capturedPiece == null) return -1;
-            if (m1.capturedPiece == null && m2.capturedPiece != null) return 1;
-            // 都吃子或都不吃子，保持原有顺序
-            return 0;
-        });
-
-        if (moves.isEmpty()) {
-            // 无路可走的情况
-            return isMaximizing ? -INF : INF;
-        }
-
-        if (isMaximizing) {
-            // AI (最大化玩家) 寻找最大分数
-            int maxEval = -INF;
-            for (GameMove move : moves) {
-                ChessPiece[] nextBoard = makeMove(board, move);
-                int evalScore = minimax(nextBoard, depth - 1, false, alpha, beta, aiColor, validator);
-                maxEval = Math.max(maxEval, evalScore);
-                alpha = Math.max(alpha, evalScore);
-                if (beta <= alpha) break; // Alpha-Beta剪枝
-            }
-            return maxEval;
-        } else {
-            // 对手 (最小化玩家) 寻找最小分数
-            int minEval = INF;
-            for (GameMove move : moves) {
-                ChessPiece[] nextBoard = makeMove(board, move);
-                int evalScore = minimax(nextBoard, depth - 1, true, alpha, beta, aiColor, validator);
-                minEval = Math.min(minEval, evalScore);
-                beta = Math.min(beta, evalScore);
-                if (beta <= alpha) break; // Alpha-Beta剪枝
-            }
-            return minEval;
-        }
+    public GameMove getBestMoveUsingMinimax(ChessPiece[] pieces, int depth, String aiColor) {
+        return getBestMove(pieces, aiColor, SearchLimits.ofDepth(depth));
     }
 
     /**
-     * 局面评估函数
-     * 从AI角度评估：分数越高对AI越有利
+     * 获取AI最佳移动
+     * 算法：迭代加深 + Negamax + Alpha-Beta剪枝，整棵搜索树在同一个 Board 上执行/撤销走法。
+     * 依次搜索深度 1、2、3……直到达到最大深度或时间、节点预算用完，
+     * 总是返回最后一次完整完成的迭代得到的最佳走法。
      *
-     * @param pieces 棋盘状态
+     * @param pieces 当前棋盘状态
      * @param aiColor AI执子颜色
-     * @return 评估分数
+     * @param limits 深度、时间和节点限制
+     * @return 最佳移动
      */
-    private int evaluateBoard(ChessPiece[] pieces, String aiColor) {
-        int score = 0;
-        for (ChessPiece piece : pieces) {
-            int pieceValue = getBaseValue(piece);
-            
-            // 位置加成
-            if (piece.type.equals("兵") && piece.y <= 4) { // 红方兵过河
-                pieceValue += PROMOTED_PAWN_BONUS;
-            } else if (piece.type.equals("卒") && piece.y >= 5) { // 黑方卒过河
-                pieceValue += PROMOTED_PAWN_BONUS;
+    public GameMove getBestMove(ChessPiece[] pieces, String aiColor, SearchLimits limits) {
+        beginSearch(limits, false);
+        return search(pieces, aiColor, limits);
+    }
+
+    /**
+     * 后台思考：在对手思考时提前搜索预测的局面
+     * 搜索不受时间限制（深度和节点限制仍然有效），一直进行到 ponderHit() 或 stop()。
+     * 与 getBestMove 不能同时进行，调用方需要保证同一时间只有一次搜索。
+     *
+     * @param pieces 预测的局面（已经走完对手的预测走法）
+     * @param aiColor 搜索方颜色
+     * @param limits 对手走完之后正常搜索使用的限制，时间从后台思考开始时算起
+     * @return 最佳移动；在开始之前已被 stop() 取消时返回 null
+     */
+    public GameMove ponder(ChessPiece[] pieces, String aiColor, SearchLimits limits) {
+        if (!beginSearch(limits, true)) return null;
+        return search(pieces, aiColor, limits);
+    }
+
+    /**
+     * 在棋盘局面上搜索，供不经过界面的调用方（如 UcciEngine）使用
+     *
+     * @param board 当前局面（不会被修改），走子方为 AI
+     * @param limits 深度、时间和节点限制
+     * @return 最佳走法编码，无子可走时返回 Move.NONE
+     */
+    public int getBestMove(Board board, SearchLimits limits) {
+        beginSearch(limits, false);
+        return search(new Board(board), limits);
+    }
+
+    /**
+     * 在棋盘局面上后台思考，见 ponder(ChessPiece[], String, SearchLimits)
+     *
+     * @return 最佳走法编码；无子可走或在开始之前已被 stop() 取消时返回 Move.NONE
+     */
+    public int ponder(Board board, SearchLimits limits) {
+        if (!beginSearch(limits, true)) return Move.NONE;
+        return search(new Board(board), limits);
+    }
+
+    /**
+     * 对手走了预测的走法：后台思考转为正常搜索
+     * 时间预算从后台思考开始时算起，如果已经用完，当前迭代结束后立即返回。
+     */
+    public synchronized void ponderHit() {
+        if (!pondering) return;
+        pondering = false;
+        if (timeLimitMs > 0) {
+            deadline = Math.max(startTime + timeLimitMs, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 从置换表中读取对手在当前局面下的预测走法（通常是上一次搜索主要变例中的应着）
+     *
+     * @param pieces 当前棋盘状态
+     * @param color 走棋方颜色
+     * @return 预测的走法，置换表中没有记录或记录的走法不合法时返回 null
+     */
+    public GameMove predictReply(ChessPiece[] pieces, String color) {
+        Board board = Board.fromPieces(pieces);
+        board.setSideToMove(Board.sideOf(color));
+        long entry = transpositionTable.probe(board.key());
+        if (entry == 0) return null;
+        int hashMove = TranspositionTable.entryMove(entry);
+        if (hashMove == Move.NONE) return null;
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = generateLegalMoves(board, moves, true);
+        for (int i = 0; i < count; i++) {
+            if (Move.fromTo(moves[i]) == hashMove) {
+                return Move.toGameMove(moves[i]);
             }
-            
-            // 将/帅安全评估
-            if (piece.type.equals("帅") || piece.type.equals("将")) {
-                // 检查将/帅周围是否有己方棋子保护
-                int protection = countProtection(pieces, piece.x, piece.y, piece.color);
-                pieceValue += protection * 5; // 每个保护棋子加5分
-                
-                // 检查是否被对方攻击
-                boolean isAttacked = isUnderAttack(pieces, piece.x, piece.y, piece.color);
-                if (isAttacked) {
-                    pieceValue -= 30; // 如果被攻击，减分
-                }
+        }
+        return null;
+    }
+
+    // 设置本次搜索的预算；后台思考在开始前已被取消时返回 false
+    private synchronized boolean beginSearch(SearchLimits limits, boolean ponder) {
+        if (ponder && stopPending) {
+            stopPending = false;
+            return false;
+        }
+        stopPending = false;
+        stopped = false;
+        pondering = ponder;
+        startTime = System.currentTimeMillis();
+        timeLimitMs = limits.timeMs;
+        deadline = limits.timeMs > 0 && !ponder ? startTime + limits.timeMs : Long.MAX_VALUE;
+        nodeLimit = limits.nodes > 0 ? limits.nodes : Long.MAX_VALUE;
+        return true;
+    }
+
+    private GameMove search(ChessPiece[] pieces, String aiColor, SearchLimits limits) {
+        Board board = Board.fromPieces(pieces);
+        board.setSideToMove(Board.sideOf(aiColor));
+        int move = search(board, limits);
+        // 只在返回结果时转换为界面使用的 GameMove
+        return move == Move.NONE ? null : Move.toGameMove(move);
+    }
+
+    private int search(Board board, SearchLimits limits) {
+        try {
+            return searchBestMove(board, limits);
+        } finally {
+            synchronized (this) {
+                pondering = false;
+                stopPending = false;
             }
+        }
+    }
 
-            // 根据AI颜色决定加分还是减分
-            if (piece.color.equals(aiColor)) {
-                score += pieceValue;
-            } else {
-                score -= pieceValue;
+    private int searchBestMove(Board board, SearchLimits limits) {
+        // 开局阶段优先使用开局库中的走法
+        OpeningBook book = openingBook;
+        if (book != null) {
+            int bookMove = book.probe(board, random);
+            if (bookMove != Move.NONE) {
+                finishSearch(SearchStats.ofProbe(SearchStats.Source.OPENING_BOOK, bookMove, 0,
+                        System.currentTimeMillis() - startTime));
+                return bookMove;
             }
         }
-        
-        // 添加一点随机性避免AI在同等局面下总走相同的棋
-        score += new Random().nextInt(3) - 1;
-        
-        return score;
+
+        // 子力组合在残局库中的局面直接按残局库走棋
+        EndgameTablebase endgames = tablebase;
+        if (endgames != null) {
+            int tablebaseMove = endgames.bestMove(board);
+            if (tablebaseMove != Move.NONE) {
+                finishSearch(SearchStats.ofProbe(SearchStats.Source.TABLEBASE, tablebaseMove,
+                        tablebaseScore(endgames.probe(board), 0), System.currentTimeMillis() - startTime));
+                return tablebaseMove;
+            }
+        }
+
+        resetSearchState();
+        for (AILogic helper : helpers) {
+            helper.resetSearchState();
+        }
+        transpositionTable.newSearch();
+
+        int[] moves = moveStack[0];
+        int count = generateLegalMoves(board, moves, true);
+        if (count == 0) {
+            // 已被绝杀或困毙：界面规则下被将军时任何走法都允许，退回到伪合法走法
+            count = generateLegalMoves(board, moves, false);
+        }
+        if (count == 0) {
+            finishSearch(collectStats(board, Move.NONE, 0));
+            return Move.NONE;
+        }
+
+        // 对移动进行排序，提高Alpha-Beta剪枝效率；之后每次迭代只把上一次的最佳走法提到最前
+        long rootEntry = transpositionTable.probe(board.key());
+        int rootHashMove = rootEntry != 0 ? TranspositionTable.entryMove(rootEntry) : Move.NONE;
+        int[] scores = scoreStack[0];
+        scoreMoves(moves, scores, count, rootHashMove, 0);
+        for (int i = 0; i < count; i++) {
+            pickMove(moves, scores, i, count);
+        }
+
+        // 必杀剪枝：如果能吃掉对方老将，直接返回
+        for (int i = 0; i < count; i++) {
+            if (typeOf(Move.captured(moves[i])) == KING) {
+                finishSearch(collectStats(board, moves[i], 0));
+                return moves[i];
+            }
+        }
+
+        // 只有一步可走时不必搜索
+        int bestMove = moves[0];
+        int completedDepth = 0;
+        if (count > 1) {
+            // 辅助线程在各自的棋盘副本上搜索同一个根节点，通过共享置换表帮助主线程
+            Future<?>[] helperTasks = startHelpers(board, moves, count, limits.depth);
+
+            long iterationStart = startTime;
+            for (int depth = 1; depth <= limits.depth; depth++) {
+                int move = searchRoot(board, moves, count, depth);
+                if (stopped) break; // 未完成的迭代结果不可靠，丢弃
+
+                bestMove = move;
+                completedDepth = depth;
+                long now = System.currentTimeMillis();
+                iterationTimes[depth - 1] = now - iterationStart;
+                iterationStart = now;
+                // 上一次迭代的最佳走法在下一次迭代中最先搜索
+                moveToFront(moves, count, Move.fromTo(bestMove));
+
+                SearchListener currentListener = listener;
+                if (currentListener != null) {
+                    currentListener.iterationCompleted(collectStats(board, bestMove, depth));
+                }
+
+                // 已经找到杀棋，或者剩余时间不够再完成一次更深的迭代
+                if (Math.abs(rootScore) > MATE_BOUND) break;
+                // 后台思考时不按时间提前结束，等待 ponderHit() 之后再判断
+                if (!pondering && timeLimitMs > 0 && System.currentTimeMillis() - startTime > timeLimitMs / 2) break;
+            }
+
+            // 采用主线程的结果，停止辅助线程
+            stopHelpers(helperTasks);
+        }
+
+        finishSearch(collectStats(board, bestMove, completedDepth));
+        return bestMove;
+    }
+
+    // 汇总所有线程的统计，主要变例从 bestMove 开始沿置换表读出
+    private SearchStats collectStats(Board board, int bestMove, int depth) {
+        long totalQnodes = qnodes, probes = ttProbes, hits = ttHits, cutoffs = betaCutoffs, firstCutoffs = firstMoveCutoffs;
+        int maxPly = selDepth;
+        for (AILogic helper : helpers) {
+            totalQnodes += helper.qnodes;
+            probes += helper.ttProbes;
+            hits += helper.ttHits;
+            cutoffs += helper.betaCutoffs;
+            firstCutoffs += helper.firstMoveCutoffs;
+            maxPly = Math.max(maxPly, helper.selDepth);
+        }
+        int[] pv = bestMove == Move.NONE ? new int[0] : principalVariation(board, bestMove);
+        return new SearchStats(SearchStats.Source.SEARCH, depth, maxPly, depth > 0 ? rootScore : 0,
+                totalNodes(), totalQnodes, System.currentTimeMillis() - startTime, probes, hits, cutoffs, firstCutoffs,
+                Arrays.copyOf(iterationTimes, depth), pv, getThreadCount(), pondering);
+    }
+
+    // 记录本次搜索的统计并通知监听器
+    private void finishSearch(SearchStats stats) {
+        lastStats = stats;
+        SearchListener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.searchCompleted(stats);
+        }
+    }
+
+    /**
+     * 最后一次完成的搜索（包括开局库、残局库走法）的统计，还没有搜索过时返回 null
+     */
+    public SearchStats getLastSearchStats() {
+        return lastStats;
+    }
+
+    /**
+     * 设置开局库，传入 null 时不使用开局库
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * 设置搜索监听器，每完成一次迭代在搜索线程上回调一次
+     */
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 设置残局库，传入 null 时不使用残局库
+     */
+    public void setTablebase(EndgameTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * 停止正在进行的搜索，getBestMove 会返回最后一次完成的迭代结果
+     * 如果还没有开始搜索，随后开始的后台思考会被直接放弃
+     */
+    public synchronized void stop() {
+        stopped = true;
+        stopPending = true;
+        for (AILogic helper : helpers) {
+            helper.stopped = true;
+        }
+    }
+
+    /**
+     * 清除 stop() 留下的取消标记
+     * 调用方确认之前的搜索都已结束、即将开始新的后台思考时调用，避免新的后台思考被之前的 stop() 取消
+     */
+    public synchronized void clearStop() {
+        stopPending = false;
     }
-    
+
     /**
-     * 计算指定位置的棋子受到的保护数量
+     * 启动 Lazy SMP 辅助线程
+     * 偶数号辅助线程从深度 2 开始，奇数号从深度 1 开始，并且每个线程的根节点走法顺序略有不同，
+     * 使各线程搜索树的不同部分，把结果写入共享置换表供主线程使用。
      */
-    private int countProtection(ChessPiece[] pieces, int x, int y, String color) {
-        int count = 0;
-        for (ChessPiece piece : pieces) {
-            if (piece.color.equals(color) && !(piece.x == x && piece.y == y)) {
-                // 检查这个棋子是否能走到指定位置（保护）
-                // 这里简化处理，只检查是否在同一行或同一列
-                if ((piece.x == x || piece.y == y) && 
-                    Math.abs(piece.x - x) <= 2 && Math.abs(piece.y - y) <= 2) {
-                    count++;
+    private synchronized Future<?>[] startHelpers(Board board, int[] moves, int count, int maxDepth) {
+        Future<?>[] tasks = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            AILogic helper = helpers[i];
+            helper.stopped = false;
+            helper.deadline = Long.MAX_VALUE;
+            helper.nodeLimit = Long.MAX_VALUE;
+            helper.tablebase = tablebase;
+            Board helperBoard = new Board(board);
+            System.arraycopy(moves, 0, helper.moveStack[0], 0, count);
+            tasks[i] = helperPool.submit(() -> helper.helperSearch(helperBoard, count, maxDepth));
+        }
+        return tasks;
+    }
+
+    // 辅助线程的迭代加深循环，结果只写入置换表
+    private void helperSearch(Board board, int count, int maxDepth) {
+        int[] moves = moveStack[0];
+        // 把第一步之后的若干走法轮转一下，改变搜索顺序
+        int rotate = threadId % count;
+        if (rotate > 0) {
+            int first = moves[rotate];
+            System.arraycopy(moves, 0, moves, 1, rotate);
+            moves[0] = first;
+        }
+        for (int depth = 1 + (threadId & 1); depth <= maxDepth && !stopped; depth++) {
+            int move = searchRoot(board, moves, count, depth);
+            if (stopped) break;
+            moveToFront(moves, count, Move.fromTo(move));
+        }
+    }
+
+    private void stopHelpers(Future<?>[] tasks) {
+        for (AILogic helper : helpers) {
+            helper.stopped = true;
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (Exception e) {
+                SearchListener currentListener = listener;
+                if (currentListener != null) {
+                    currentListener.helperFailed(e instanceof ExecutionException ? e.getCause() : e);
                 }
             }
         }
-        return count;
     }
-    
+
     /**
-     * 检查指定位置是否被对方攻击
+     * 从根节点的最佳走法开始，沿置换表中记录的最佳走法得到主要变例
+     * 遇到没有记录、走法不合法或局面重复时停止。
      */
-    private boolean isUnderAttack(ChessPiece[] pieces, int x, int y, String myColor) {
-        String opponentColor = myColor.equals("RED") ? "BLACK" : "RED";
-        for (ChessPiece piece : pieces) {
-            if (piece.color.equals(opponentColor)) {
-                // 简化检查：只需检查是否在附近
-                if (Math.abs(piece.x - x) <= 2 && Math.abs(piece.y - y) <= 2) {
-                    return true;
+    int[] principalVariation(Board board, int firstMove) {
+        int[] pv = new int[MAX_PLY];
+        long[] keys = new long[MAX_PLY];
+        int length = 0;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int move = firstMove;
+        while (move != Move.NONE && length < MAX_PLY) {
+            keys[length] = board.key();
+            pv[length++] = move;
+            board.doMove(Move.from(move), Move.to(move));
+
+            long entry = transpositionTable.probe(board.key());
+            int hashMove = entry != 0 ? TranspositionTable.entryMove(entry) : Move.NONE;
+            move = Move.NONE;
+            if (hashMove == Move.NONE) break;
+            for (int i = 0; i < length; i++) {
+                if (keys[i] == board.key()) hashMove = Move.NONE;
+            }
+            int count = MoveGenerator.generateMoves(board, moves);
+            for (int i = 0; i < count && hashMove != Move.NONE; i++) {
+                if (Move.fromTo(moves[i]) == hashMove
+                        && MoveGenerator.isLegal(board, Move.from(moves[i]), Move.to(moves[i]))) {
+                    move = moves[i];
                 }
             }
         }
-        return false;
+        for (int i = 0; i < length; i++) {
+            board.undoMove();
+        }
+        return Arrays.copyOf(pv, length);
+    }
+
+    // 残局库的值转换为搜索分数，与搜索中的杀棋分数一样越快将死分数越高
+    private static int tablebaseScore(int value, int ply) {
+        if (value < EndgameTable.DTM_BASE) return 0;
+        int matePly = ply + value - EndgameTable.DTM_BASE;
+        return ((value - EndgameTable.DTM_BASE) & 1) == 1 ? MATE_VALUE - matePly : -MATE_VALUE + matePly;
+    }
+
+    // 新的一次搜索开始时清空本线程的统计和杀手走法，历史分数减半保留
+    private void resetSearchState() {
+        nodes = 0;
+        qnodes = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        selDepth = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+        for (int[] pieceHistory : history) {
+            for (int sq = 0; sq < pieceHistory.length; sq++) {
+                pieceHistory[sq] >>= 1;
+            }
+        }
+    }
+
+    // 所有线程访问的节点数之和
+    private long totalNodes() {
+        long total = nodes;
+        for (AILogic helper : helpers) {
+            total += helper.nodes;
+        }
+        return total;
     }
 
     /**
-     * 获取棋子基础价值
+     * 对根节点的走法进行一次固定深度的搜索
      *
-     * @param piece 棋子
-     * @return 棋子价值
+     * @return 本次迭代的最佳走法，分数保存在 rootScore
      */
-    private int getBaseValue(ChessPiece piece) {
-        switch (piece.type) {
-            case "帅":
-            case "将":
-                return KING_VALUE;
-            case "车":
-                return ROOK_VALUE;
-            case "马":
-                return KNIGHT_VALUE;
-            case "炮":
-                return CANNON_VALUE;
-            case "仕":
-            case "士":
-                return ADVISOR_VALUE;
-            case "相":
-            case "象":
-                return BISHOP_VALUE;
-            case "兵":
-                return PAWN_VALUE;
-            case "卒":
-                return PAWN_VALUE;
-            default:
-                return 0;
+    private int searchRoot(Board board, int[] moves, int count, int depth) {
+        int bestMove = Move.NONE;
+        int alpha = -INF;
+        int beta = INF;
+
+        // 对于每个可能的移动
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+
+            // 在棋盘上执行移动，递归搜索评估分数后撤销
+            board.doMove(Move.from(move), Move.to(move));
+            int evalScore = -negamax(board, depth - 1, 1, -beta, -alpha);
+            board.undoMove();
+            if (stopped) return Move.NONE;
+
+            // 更新最佳移动
+            if (bestMove == Move.NONE || evalScore > alpha) {
+                alpha = evalScore;
+                bestMove = move;
+            }
+        }
+
+        rootScore = alpha;
+        transpositionTable.store(board.key(), depth, TranspositionTable.BOUND_EXACT, scoreToTable(alpha, 0), bestMove);
+        return bestMove;
+    }
+
+    // 每隔一定节点数检查一次时间和节点预算
+    private void checkLimits() {
+        if (totalNodes() >= nodeLimit || System.currentTimeMillis() >= deadline) {
+            stopped = true;
         }
     }
 
     /**
-     * 生成所有合法移动
+     * Negamax 形式的 Alpha-Beta 搜索
+     * 分数总是站在当前走子方的角度，走法在 board 上执行后立即撤销，不复制棋盘
      *
-     * @param pieces 棋盘状态
-     * @param playerColor 玩家颜色
-     * @param validator 移动规则验证器
-     * @return 合法移动列表
+     * @param board 当前棋盘（搜索过程中被原地修改，返回前恢复）
+     * @param depth 剩余搜索深度
+     * @param ply 距根节点的层数，用于选择走法数组
+     * @param alpha Alpha值
+     * @param beta Beta值
+     * @return 当前走子方角度的评估分数
      */
-    private List<GameMove> generateLegalMoves(ChessPiece[] pieces, String playerColor, MoveRuleValidator validator) {
-        List<GameMove> legalMoves = new ArrayList<>();
-        for (ChessPiece piece : pieces) {
-            if (piece.color.equals(playerColor)) {
-                // 特殊处理将/帅的移动，避免不必要的移动
-                if (piece.type.equals("将") || piece.type.equals("帅")) {
-                    // 限制将/帅的移动，除非必要时不移动
-                    for (int x = 0; x < 9; x++) {
-                        for (int y = 0; y < 10; y++) {
-                            if (validator.checkMove(piece.x, piece.y, x, y) == MoveRuleValidator.MoveValidationResult.VALID) {
-                                // 只有在必要时才允许将/帅移动
-                                if (isNecessaryKingMove(pieces, piece, x, y, playerColor, validator)) {
-                                    legalMoves.add(new GameMove(piece.x, piece.y, x, y, 0, piece.type, piece.color, getPieceAt(pieces, x, y)));
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    // 其他棋子正常处理
-                    for (int x = 0; x < 9; x++) {
-                        for (int y = 0; y < 10; y++) {
-                            if (validator.checkMove(piece.x, piece.y, x, y) == MoveRuleValidator.MoveValidationResult.VALID) {
-                                legalMoves.add(new GameMove(piece.x, piece.y, x, y, 0, piece.type, piece.color, getPieceAt(pieces, x, y)));
-                            }
-                        }
-                    }
+    private int negamax(Board board, int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if (ply > selDepth) selDepth = ply;
+        if ((nodes & 1023) == 0) {
+            checkLimits();
+        }
+        if (stopped) return 0;
+
+        // 递归终止条件：达到最大层数或游戏结束
+        if (ply >= MAX_PLY || isGameOver(board)) {
+            return evaluateBoard(board, board.sideToMove());
+        }
+        // 残局库中的局面直接得到准确的分数
+        if (tablebase != null) {
+            int value = tablebase.probe(board);
+            if (value != EndgameTablebase.UNKNOWN) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        // 达到搜索深度后进入静态搜索，把吃子交换走完再评估，避免水平线效应
+        if (depth == 0) {
+            return quiescence(board, ply, alpha, beta);
+        }
+
+        // 查询置换表：足够深的记录可以直接返回，否则至少取出最佳走法优先搜索
+        int originalAlpha = alpha;
+        int hashMove = Move.NONE;
+        long entry = transpositionTable.probe(board.key());
+        ttProbes++;
+        if (entry != 0) {
+            ttHits++;
+            hashMove = TranspositionTable.entryMove(entry);
+            if (TranspositionTable.entryDepth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.entryScore(entry), ply);
+                int bound = TranspositionTable.entryBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
                 }
             }
         }
-        return legalMoves;
-    }
-    
-    /**
-     * 判断将/帅的移动是否必要
-     */
-    private boolean isNecessaryKingMove(ChessPiece[] pieces, ChessPiece king, int toX, int toY, String playerColor, MoveRuleValidator validator) {
-        // 如果是吃子，则认为是必要的
-        ChessPiece target = getPieceAt(pieces, toX, toY);
-        if (target != null) {
-            return true;
-        }
-        
-        // 检查是否被将军，如果是，则移动可能是必要的
-        boolean isCurrentlyInCheck = isKingInCheck(pieces, king, playerColor, validator);
-        if (isCurrentlyInCheck) {
-            return true;
-        }
-        
-        // 随机允许一定比例的将/帅移动，避免完全不动
-        return Math.random() < 0.2;
-    }
-    
-    /**
-     * 检查将/帅是否被将军
-     */
-    private boolean isKingInCheck(ChessPiece[] pieces, ChessPiece king, String playerColor, MoveRuleValidator validator) {
-        String opponentColor = playerColor.equals("RED") ? "BLACK" : "RED";
-        
-        // 查找将/帅的位置
-        int kingX = king.x;
-        int kingY = king.y;
-        
-        // 检查对方是否有棋子可以攻击将/帅
-        for (ChessPiece piece : pieces) {
-            if (piece.color.equals(opponentColor)) {
-                if (validator.checkMove(piece.x, piece.y, kingX, kingY) == MoveRuleValidator.MoveValidationResult.VALID) {
-                    return true;
+
+        int[] moves = moveStack[ply];
+        int count = generateLegalMoves(board, moves, true);
+        if (count == 0) {
+            // 无路可走：被将军时越早被将死分数越低，困毙按本程序的规则判和
+            return MoveGenerator.isInCheck(board, board.sideToMove()) ? -MATE_VALUE + ply : 0;
+        }
+
+        // 对移动打分，循环中每次用选择排序取出分数最高的走法
+        int[] scores = scoreStack[ply];
+        scoreMoves(moves, scores, count, hashMove, ply);
+
+        int bestScore = -INF;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            pickMove(moves, scores, i, count);
+            int move = moves[i];
+            board.doMove(Move.from(move), Move.to(move));
+            int evalScore = -negamax(board, depth - 1, ply + 1, -beta, -alpha);
+            board.undoMove();
+            // 搜索被中止时返回的分数不可靠，不写入置换表
+            if (stopped) return 0;
+
+            if (evalScore > bestScore) {
+                bestScore = evalScore;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, evalScore);
+            if (beta <= alpha) { // Alpha-Beta剪枝
+                betaCutoffs++;
+                if (i == 0) firstMoveCutoffs++;
+                if (!Move.isCapture(move)) {
+                    updateQuietCutoff(move, depth, ply);
                 }
+                break;
             }
         }
-        
-        return false;
+
+        int bound = bestScore <= originalAlpha ? TranspositionTable.BOUND_UPPER
+                : bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : TranspositionTable.BOUND_EXACT;
+        // 未超过 alpha 时各走法的分数都只是上界，不记录最佳走法
+        transpositionTable.store(board.key(), depth, bound, scoreToTable(bestScore, ply),
+                bound == TranspositionTable.BOUND_UPPER ? Move.NONE : bestMove);
+        return bestScore;
     }
 
     /**
-     * 模拟执行一步棋
+     * 静态搜索：只搜索吃子走法，直到局面"安静"下来
+     * 走子方可以选择不吃子（stand pat），所以当前局面的评估值是分数的下界，
+     * 已经不低于 beta 时直接截断。
      *
-     * @param pieces 当前棋盘状态
-     * @param move 要执行的移动
-     * @return 执行后的棋盘状态
+     * @return 当前走子方角度的评估分数
      */
-    private ChessPiece[] makeMove(ChessPiece[] pieces, GameMove move) {
-        ChessPiece[] newPieces = new ChessPiece[pieces.length];
-        for (int i = 0; i < pieces.length; i++) {
-            newPieces[i] = new ChessPiece(pieces[i]);
+    private int quiescence(Board board, int ply, int alpha, int beta) {
+        nodes++;
+        qnodes++;
+        if (ply > selDepth) selDepth = ply;
+        if ((nodes & 1023) == 0) {
+            checkLimits();
         }
+        if (stopped) return 0;
 
-        ChessPiece movedPiece = null;
-        for (ChessPiece piece : newPieces) {
-            if (piece.x == move.fromX && piece.y == move.fromY) {
-                movedPiece = piece;
-                break;
+        int standPat = evaluateBoard(board, board.sideToMove());
+        if (ply >= MAX_PLY || isGameOver(board)) {
+            return standPat;
+        }
+        if (standPat >= beta) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] moves = moveStack[ply];
+        int count = MoveGenerator.generateCaptures(board, moves);
+        int[] scores = scoreStack[ply];
+        scoreMoves(moves, scores, count, Move.NONE, ply);
+
+        int bestScore = standPat;
+        for (int i = 0; i < count; i++) {
+            pickMove(moves, scores, i, count);
+            int move = moves[i];
+            if (!MoveGenerator.isLegal(board, Move.from(move), Move.to(move))) continue;
+
+            board.doMove(Move.from(move), Move.to(move));
+            int evalScore = -quiescence(board, ply + 1, -beta, -alpha);
+            board.undoMove();
+            if (stopped) return 0;
+
+            if (evalScore > bestScore) {
+                bestScore = evalScore;
             }
+            if (evalScore > alpha) {
+                alpha = evalScore;
+            }
+            if (alpha >= beta) break;
         }
+        return bestScore;
+    }
 
-        if (movedPiece != null) {
-            movedPiece.x = move.toX;
-            movedPiece.y = move.toY;
+    /**
+     * 给走法打排序分：置换表走法最先，然后是按 MVV-LVA（被吃子价值高、吃子棋子价值低优先）排列的吃子，
+     * 再是本层的两个杀手走法，最后是按历史分数排列的其余走法
+     */
+    private void scoreMoves(int[] moves, int[] scores, int count, int hashMove, int ply) {
+        int killer1 = killers[ply][0];
+        int killer2 = killers[ply][1];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int fromTo = Move.fromTo(move);
+            if (fromTo == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isCapture(move)) {
+                scores[i] = CAPTURE_SCORE + getBaseValue(Move.captured(move)) * 16 - getBaseValue(Move.piece(move));
+            } else if (fromTo == killer1) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (fromTo == killer2) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = history[Move.piece(move)][Move.to(move)];
+            }
         }
+    }
 
-        if (move.capturedPiece != null) {
-            List<ChessPiece> pieceList = new ArrayList<>();
-            for (ChessPiece piece : newPieces) {
-                if (piece.x == move.capturedPiece.x && piece.y == move.capturedPiece.y) {
-                    continue;
+    /**
+     * 选择排序的一步：把 i..count-1 中分数最高的走法交换到位置 i
+     */
+    private void pickMove(int[] moves, int[] scores, int i, int count) {
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        if (best != i) {
+            int move = moves[i];
+            moves[i] = moves[best];
+            moves[best] = move;
+            int score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+    }
+
+    // 不吃子的走法产生截断：记为本层杀手走法，并增加历史分数
+    private void updateQuietCutoff(int move, int depth, int ply) {
+        int fromTo = Move.fromTo(move);
+        if (killers[ply][0] != fromTo) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = fromTo;
+        }
+        int[] pieceHistory = history[Move.piece(move)];
+        pieceHistory[Move.to(move)] += depth * depth;
+        if (pieceHistory[Move.to(move)] > HISTORY_LIMIT) {
+            // 分数过大时整体减半，保持在杀手走法分数之下
+            for (int[] table : history) {
+                for (int sq = 0; sq < table.length; sq++) {
+                    table[sq] >>= 1;
                 }
-                pieceList.add(piece);
             }
-            newPieces = pieceList.toArray(new ChessPiece[0]);
         }
-
-        return newPieces;
     }
 
     /**
-     * 检查游戏是否结束（一方将领被吃）
-     *
-     * @param pieces 棋盘状态
-     * @return 游戏是否结束
+     * 把起点终点与 fromTo 相同的走法移到最前面
      */
-    private boolean isGameOver(ChessPiece[] pieces) {
-        boolean redKingFound = false;
-        boolean blackKingFound = false;
-        for (ChessPiece piece : pieces) {
-            if (piece.type.equals("帅")) {
-                redKingFound = true;
-            }
-            if (piece.type.equals("将")) {
-                blackKingFound = true;
+    private void moveToFront(int[] moves, int count, int fromTo) {
+        if (fromTo == Move.NONE) return;
+        for (int i = 0; i < count; i++) {
+            if (Move.fromTo(moves[i]) == fromTo) {
+                int move = moves[i];
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
             }
         }
-        return !redKingFound || !blackKingFound;
+    }
+
+    // 杀棋分数存入置换表时换算成相对当前节点的距离，取出时再换算回来
+    private int scoreToTable(int score, int ply) {
+        if (score > MATE_BOUND) return score + ply;
+        if (score < -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private int scoreFromTable(int score, int ply) {
+        if (score > MATE_BOUND) return score - ply;
+        if (score < -MATE_BOUND) return score + ply;
+        return score;
     }
 
     /**
-     * 获取指定位置的棋子
+     * 局面评估函数，从指定执子方角度评估（见 Evaluator）
+     */
+    private int evaluateBoard(Board board, int side) {
+        return Evaluator.evaluate(board, side);
+    }
+
+    /**
+     * 获取棋子基础价值
+     */
+    private int getBaseValue(int piece) {
+        return Evaluator.pieceValue(piece);
+    }
+
+    /**
+     * 生成当前走子方的所有合法移动（Move 编码）
+     * 由 MoveGenerator 生成伪合法走法，再原地过滤掉送将和将帅对脸的走法
      *
-     * @param pieces 棋盘状态
-     * @param x X坐标
-     * @param y Y坐标
-     * @return 指定位置的棋子，如果没有则返回null
+     * @param board 棋盘状态
+     * @param moves 输出数组
+     * @param legalOnly 是否过滤送将的走法
+     * @return 合法移动数量
      */
-    private ChessPiece getPieceAt(ChessPiece[] pieces, int x, int y) {
-        for (ChessPiece piece : pieces) {
-            if (piece.x == x && piece.y == y) {
-                return piece;
-            }
+    private int generateLegalMoves(Board board, int[] moves, boolean legalOnly) {
+        int count = MoveGenerator.generateMoves(board, moves);
+        if (!legalOnly) return count;
+
+        int legalCount = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!MoveGenerator.isLegal(board, Move.from(move), Move.to(move))) continue;
+            moves[legalCount++] = move;
         }
-        return null;
+        return legalCount;
+    }
+
+    /**
+     * 检查游戏是否结束（一方将领被吃）
+     *
+     * @param board 棋盘状态
+     * @return 游戏是否结束
+     */
+    private boolean isGameOver(Board board) {
+        return board.kingSquare(RED) == 0 || board.kingSquare(BLACK) == 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,391 @@
+package UI.AI;
+
+import UI.MainGameUI.ChessPiece;
+
+/**
+ * 棋盘的数组表示（16x16 带边界的 mailbox）
+ * 每个格子用一个 byte 保存棋子编码，按坐标查棋子只需要一次数组访问。
+ * 棋盘坐标 (x, y) 映射到下标 ((y + 3) << 4) + (x + 3)，四周留出的空白格子用于越界判断。
+ */
+public class Board {
+
+    // 执子方
+    public static final int RED = 0;
+    public static final int BLACK = 1;
+
+    // 棋子类型（编码的低 3 位）
+    public static final int EMPTY = 0;
+    public static final int KING = 1;
+    public static final int ADVISOR = 2;
+    public static final int BISHOP = 3;
+    public static final int KNIGHT = 4;
+    public static final int ROOK = 5;
+    public static final int CANNON = 6;
+    public static final int PAWN = 7;
+
+    // 颜色标记：红方棋子编码为 8~15，黑方棋子编码为 16~23
+    public static final int RED_FLAG = 8;
+    public static final int BLACK_FLAG = 16;
+
+    public static final int COLS = 9;
+    public static final int ROWS = 10;
+
+    // 棋盘内的格子
+    private static final boolean[] IN_BOARD = new boolean[256];
+    // 按 y、x 顺序排列的 90 个棋盘格子下标
+    public static final int[] SQUARES = new int[90];
+
+    static {
+        int i = 0;
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) {
+                int sq = square(x, y);
+                IN_BOARD[sq] = true;
+                SQUARES[i++] = sq;
+            }
+        }
+    }
+
+    // 走子记录栈的容量，足够容纳一次搜索的最大深度
+    private static final int MAX_UNDO = 512;
+
+    private final byte[] squares = new byte[256];
+    private final int[] kingSquares = new int[2];
+    private int sideToMove = RED;
+    // 当前局面的 Zobrist 键，随走子增量更新
+    private long key = 0;
+    // 双方子力价值和位置分之和，随走子增量更新
+    private final int[] pieceSquareScores = new int[2];
+    // 棋盘上的棋子总数
+    private int pieceCount = 0;
+
+    // 每条记录按位保存 from | to << 8 | 被吃棋子 << 16，用于 undoMove 恢复局面
+    private final int[] undoStack = new int[MAX_UNDO];
+    // 与 undoStack 对应的走子前局面键
+    private final long[] keyStack = new long[MAX_UNDO];
+    private int undoCount = 0;
+
+    public Board() {
+    }
+
+    // 拷贝构造函数
+    public Board(Board other) {
+        System.arraycopy(other.squares, 0, this.squares, 0, 256);
+        this.kingSquares[RED] = other.kingSquares[RED];
+        this.kingSquares[BLACK] = other.kingSquares[BLACK];
+        this.sideToMove = other.sideToMove;
+        this.key = other.key;
+        this.pieceSquareScores[RED] = other.pieceSquareScores[RED];
+        this.pieceSquareScores[BLACK] = other.pieceSquareScores[BLACK];
+        this.pieceCount = other.pieceCount;
+    }
+
+    /**
+     * 由棋子数组构造棋盘
+     *
+     * @param pieces 棋子数组
+     * @return 棋盘
+     */
+    public static Board fromPieces(ChessPiece[] pieces) {
+        Board board = new Board();
+        for (ChessPiece piece : pieces) {
+            if (piece == null || piece.x < 0 || piece.x >= COLS || piece.y < 0 || piece.y >= ROWS) continue;
+            int code = piece.code;
+            if (typeOf(code) != EMPTY) {
+                board.addPiece(square(piece.x, piece.y), code);
+            }
+        }
+        return board;
+    }
+
+    // 标准开局的 FEN
+    public static final String START_FEN = "rnbakabnr/9/1c5c1/p1p1p1p1p/9/9/P1P1P1P1P/1C5C1/9/RNBAKABNR w - - 0 1";
+
+    // 输出 FEN 时使用的棋子字母，下标为棋子类型（大写为红方，小写为黑方）
+    private static final String FEN_PIECES = " KABNRCP";
+
+    /**
+     * 由 FEN 串构造棋盘
+     * 第一段从黑方底线（y = 0）开始逐行描述棋子，第二段为走子方（w/r 为红方，b 为黑方），其余字段忽略。
+     * 象、马也接受 E、H 的写法。
+     *
+     * @param fen FEN 串
+     * @return 棋盘
+     * @throws IllegalArgumentException FEN 格式错误
+     */
+    public static Board fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != ROWS) {
+            throw new IllegalArgumentException("FEN 行数错误: " + fen);
+        }
+
+        Board board = new Board();
+        for (int y = 0; y < ROWS; y++) {
+            int x = 0;
+            for (char c : rows[y].toCharArray()) {
+                if (c >= '1' && c <= '9') {
+                    x += c - '0';
+                    continue;
+                }
+                int type = fenPieceType(c);
+                if (type == EMPTY || x >= COLS) {
+                    throw new IllegalArgumentException("FEN 格式错误: " + fen);
+                }
+                int side = Character.isUpperCase(c) ? RED : BLACK;
+                board.addPiece(square(x, y), type | sideFlag(side));
+                x++;
+            }
+            if (x != COLS) {
+                throw new IllegalArgumentException("FEN 第 " + (y + 1) + " 行列数错误: " + fen);
+            }
+        }
+        if (fields.length > 1 && fields[1].equals("b")) {
+            board.setSideToMove(BLACK);
+        }
+        return board;
+    }
+
+    private static int fenPieceType(char c) {
+        return switch (Character.toUpperCase(c)) {
+            case 'K' -> KING;
+            case 'A' -> ADVISOR;
+            case 'B', 'E' -> BISHOP;
+            case 'N', 'H' -> KNIGHT;
+            case 'R' -> ROOK;
+            case 'C' -> CANNON;
+            case 'P' -> PAWN;
+            default -> EMPTY;
+        };
+    }
+
+    /**
+     * 当前局面的 FEN 串
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < ROWS; y++) {
+            if (y > 0) sb.append('/');
+            int empty = 0;
+            for (int x = 0; x < COLS; x++) {
+                int piece = pieceAt(x, y);
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char c = FEN_PIECES.charAt(typeOf(piece));
+                sb.append(sideOf(piece) == RED ? c : Character.toLowerCase(c));
+            }
+            if (empty > 0) sb.append(empty);
+        }
+        sb.append(sideToMove == RED ? " w" : " b").append(" - - 0 1");
+        return sb.toString();
+    }
+
+    // ===== 坐标换算 =====
+
+    public static int square(int x, int y) {
+        return ((y + 3) << 4) + x + 3;
+    }
+
+    public static int fileOf(int sq) {
+        return (sq & 15) - 3;
+    }
+
+    public static int rankOf(int sq) {
+        return (sq >> 4) - 3;
+    }
+
+    public static boolean inBoard(int sq) {
+        return sq >= 0 && sq < 256 && IN_BOARD[sq];
+    }
+
+    // ===== 棋子编码 =====
+
+    public static int sideFlag(int side) {
+        return RED_FLAG << side;
+    }
+
+    public static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    public static int sideOf(int piece) {
+        return (piece >> 4) & 1;
+    }
+
+    public static int opponent(int side) {
+        return 1 - side;
+    }
+
+    public static int sideOf(String color) {
+        return "RED".equals(color) ? RED : BLACK;
+    }
+
+    public static String colorOf(int side) {
+        return side == RED ? "RED" : "BLACK";
+    }
+
+    /**
+     * 由棋子名称和颜色得到棋子编码，无法识别时返回 EMPTY
+     */
+    public static int pieceCode(String type, String color) {
+        int pieceType = switch (type) {
+            case "将", "帅" -> KING;
+            case "士", "仕" -> ADVISOR;
+            case "象", "相" -> BISHOP;
+            case "马", "馬" -> KNIGHT;
+            case "车", "車" -> ROOK;
+            case "炮", "砲" -> CANNON;
+            case "兵", "卒" -> PAWN;
+            default -> EMPTY;
+        };
+        if (pieceType == EMPTY) return EMPTY;
+        return pieceType | sideFlag(sideOf(color));
+    }
+
+    /**
+     * 棋子编码对应的显示名称（与初始布局使用的字一致）
+     */
+    public static String pieceName(int piece) {
+        boolean red = sideOf(piece) == RED;
+        return switch (typeOf(piece)) {
+            case KING -> red ? "帅" : "将";
+            case ADVISOR -> red ? "仕" : "士";
+            case BISHOP -> red ? "相" : "象";
+            case KNIGHT -> "马";
+            case ROOK -> "车";
+            case CANNON -> "炮";
+            case PAWN -> red ? "兵" : "卒";
+            default -> "";
+        };
+    }
+
+    // ===== 查询 =====
+
+    public int pieceAt(int sq) {
+        return squares[sq];
+    }
+
+    public int pieceAt(int x, int y) {
+        return squares[square(x, y)];
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return squares[square(x, y)] == EMPTY;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int side) {
+        if (this.sideToMove != side) {
+            key ^= Zobrist.SIDE_KEY;
+        }
+        this.sideToMove = side;
+    }
+
+    /**
+     * 当前局面的 Zobrist 键（包含走子方）
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * 指定执子方所有棋子的子力价值与位置分之和（见 Evaluator）
+     */
+    public int pieceSquareScore(int side) {
+        return pieceSquareScores[side];
+    }
+
+    public int pieceCount() {
+        return pieceCount;
+    }
+
+    /**
+     * 将/帅所在格子，不存在时返回 0
+     */
+    public int kingSquare(int side) {
+        return kingSquares[side];
+    }
+
+    /**
+     * 把指定格子上的棋子转换为 ChessPiece，格子为空时返回 null
+     */
+    public ChessPiece toChessPiece(int sq) {
+        int piece = squares[sq];
+        if (piece == EMPTY) return null;
+        return new ChessPiece(piece, fileOf(sq), rankOf(sq));
+    }
+
+    // ===== 修改 =====
+
+    public void addPiece(int sq, int piece) {
+        squares[sq] = (byte) piece;
+        pieceCount++;
+        key ^= Zobrist.PIECE_KEYS[piece][sq];
+        pieceSquareScores[sideOf(piece)] += Evaluator.PIECE_SQUARE_VALUES[piece][sq];
+        if (typeOf(piece) == KING) {
+            kingSquares[sideOf(piece)] = sq;
+        }
+    }
+
+    public void removePiece(int sq) {
+        int piece = squares[sq];
+        if (piece == EMPTY) return;
+        squares[sq] = EMPTY;
+        pieceCount--;
+        key ^= Zobrist.PIECE_KEYS[piece][sq];
+        pieceSquareScores[sideOf(piece)] -= Evaluator.PIECE_SQUARE_VALUES[piece][sq];
+        if (typeOf(piece) == KING && kingSquares[sideOf(piece)] == sq) {
+            kingSquares[sideOf(piece)] = 0;
+        }
+    }
+
+    /**
+     * 把棋子从 from 移动到 to，返回被吃掉的棋子编码（没有则为 EMPTY）
+     */
+    public int movePiece(int from, int to) {
+        int captured = squares[to];
+        int piece = squares[from];
+        if (captured != EMPTY) {
+            removePiece(to);
+        }
+        removePiece(from);
+        addPiece(to, piece);
+        return captured;
+    }
+
+    /**
+     * 在棋盘上原地执行一步棋并记录到走子记录栈，同时交换走子方
+     */
+    public void doMove(int from, int to) {
+        keyStack[undoCount] = key;
+        int captured = movePiece(from, to);
+        undoStack[undoCount++] = from | (to << 8) | (captured << 16);
+        sideToMove ^= 1;
+        key ^= Zobrist.SIDE_KEY;
+    }
+
+    /**
+     * 撤销最近一次 doMove，恢复被吃掉的棋子和走子方
+     */
+    public void undoMove() {
+        int record = undoStack[--undoCount];
+        int from = record & 0xff;
+        int to = (record >> 8) & 0xff;
+        int captured = record >>> 16;
+        movePiece(to, from);
+        if (captured != EMPTY) {
+            addPiece(to, captured);
+        }
+        sideToMove ^= 1;
+        key = keyStack[undoCount];
+    }
+}
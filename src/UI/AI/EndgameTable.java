@@ -0,0 +1,345 @@
+package UI.AI;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static UI.AI.Board.*;
+
+/**
+ * 一种子力组合的残局库（到将死的步数，DTM）
+ *
+ * 子力组合用签名表示，例如 KRKAABB：第一个 K 起为红方棋子，第二个 K 起为黑方棋子，同一方按 K A B N R C P 排序。
+ * 签名中的每个棋子占一个位置槽，每个槽只在该棋子可能出现的格子上取值（将帅在九宫内，仕、相、兵只在规则允许的点上），
+ * 局面下标 = ((走子方 * n0 + 槽0) * n1 + 槽1) * n2 + ...
+ *
+ * 每个局面的值（相对于走子方）：
+ * DRAW 和棋，ILLEGAL 不可能出现的局面（棋子重叠、不走棋的一方被将军或将帅对脸），
+ * DTM_BASE + d 表示 d 步（半回合）后将死：d 为奇数时走子方胜，为偶数时走子方负（d = 0 表示已被将死）。
+ * 按本程序的规则，困毙（无子可动但未被将军）判和。
+ *
+ * 数值按固定位数紧凑地存放在 long 数组中，文件格式：
+ * 魔数、版本、每个值的位数、局面数、签名长度、签名（ASCII），之后是 long 数组（大端序）。
+ */
+public final class EndgameTable {
+
+    public static final int DRAW = 0;
+    public static final int ILLEGAL = 1;
+    public static final int DTM_BASE = 2;
+    public static final int MAX_DTM = 255 - DTM_BASE;
+
+    private static final int MAGIC = 0x58515442; // "XQTB"
+    private static final int VERSION = 1;
+    private static final String SIGNATURE_PIECES = "KABNRCP";
+    public static final String FILE_SUFFIX = ".xqtb";
+
+    private final String signature;
+    // 每个槽的棋子编码
+    private final int[] slotPieces;
+    // 每个槽可取的格子，以及格子到槽内序号的映射（不可取的格子为 -1）
+    private final int[][] slotSquares;
+    private final int[][] slotSquareIndex;
+    private final int size;
+
+    private final int bits;
+    private final int valuesPerWord;
+    private final long[] packed;
+
+    private EndgameTable(String signature, int bits, long[] packed) {
+        this.signature = signature;
+        this.slotPieces = parseSignature(signature);
+        this.slotSquares = new int[slotPieces.length][];
+        this.slotSquareIndex = new int[slotPieces.length][256];
+        long positions = 2;
+        for (int slot = 0; slot < slotPieces.length; slot++) {
+            slotSquares[slot] = allowedSquares(slotPieces[slot]);
+            Arrays.fill(slotSquareIndex[slot], -1);
+            for (int i = 0; i < slotSquares[slot].length; i++) {
+                slotSquareIndex[slot][slotSquares[slot][i]] = i;
+            }
+            positions *= slotSquares[slot].length;
+        }
+        if (positions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("残局库过大: " + signature);
+        }
+        this.size = (int) positions;
+        this.bits = bits;
+        this.valuesPerWord = 64 / bits;
+        this.packed = packed;
+    }
+
+    /**
+     * 只有签名和下标计算、没有数据的表，供生成器使用
+     */
+    static EndgameTable layout(String signature) {
+        return new EndgameTable(signature, 8, null);
+    }
+
+    /**
+     * 把生成器得到的数值按最少的位数打包
+     */
+    static EndgameTable pack(String signature, byte[] values) {
+        int max = 0;
+        for (byte value : values) {
+            max = Math.max(max, value & 0xff);
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        int perWord = 64 / bits;
+        long[] packed = new long[(values.length + perWord - 1) / perWord];
+        for (int i = 0; i < values.length; i++) {
+            packed[i / perWord] |= (long) (values[i] & 0xff) << ((i % perWord) * bits);
+        }
+        return new EndgameTable(signature, bits, packed);
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int pieceCount() {
+        return slotPieces.length;
+    }
+
+    int slotCount() {
+        return slotPieces.length;
+    }
+
+    int slotPiece(int slot) {
+        return slotPieces[slot];
+    }
+
+    int[] slotSquares(int slot) {
+        return slotSquares[slot];
+    }
+
+    /**
+     * 下标对应的值
+     */
+    public int get(int index) {
+        long word = packed[index / valuesPerWord];
+        return (int) (word >>> ((index % valuesPerWord) * bits)) & ((1 << bits) - 1);
+    }
+
+    /**
+     * 由各槽的格子计算局面下标
+     *
+     * @param sideToMove 走子方
+     * @param squares 按槽顺序排列的格子
+     * @return 局面下标，有棋子不在允许的格子上时返回 -1
+     */
+    int indexOf(int sideToMove, int[] squares) {
+        int index = sideToMove;
+        for (int slot = 0; slot < slotPieces.length; slot++) {
+            int local = slotSquareIndex[slot][squares[slot]];
+            if (local < 0) return -1;
+            index = index * slotSquares[slot].length + local;
+        }
+        return index;
+    }
+
+    /**
+     * 由局面下标得到各槽的格子
+     *
+     * @return 走子方
+     */
+    int decode(int index, int[] squares) {
+        for (int slot = slotPieces.length - 1; slot >= 0; slot--) {
+            int count = slotSquares[slot].length;
+            squares[slot] = slotSquares[slot][index % count];
+            index /= count;
+        }
+        return index;
+    }
+
+    /**
+     * 查询棋盘局面
+     * 棋盘上的棋子必须与签名一致；mirrored 为 true 时把棋盘上下翻转并交换红黑双方后再查询，
+     * 用于强方为黑方的局面（例如红方只剩帅、黑方有车时查询 KRK 表）。
+     *
+     * @return 相对于棋盘走子方的值，局面无法表示时返回 ILLEGAL
+     */
+    public int probe(Board board, boolean mirrored) {
+        int[] squares = new int[slotPieces.length];
+        boolean[] filled = new boolean[slotPieces.length];
+        for (int sq : SQUARES) {
+            int piece = board.pieceAt(sq);
+            if (piece == EMPTY) continue;
+            int code = mirrored ? typeOf(piece) | sideFlag(opponent(sideOf(piece))) : piece;
+            int slot = 0;
+            while (slot < slotPieces.length && (filled[slot] || slotPieces[slot] != code)) {
+                slot++;
+            }
+            if (slot == slotPieces.length) return ILLEGAL;
+            filled[slot] = true;
+            squares[slot] = mirrored ? mirror(sq) : sq;
+        }
+        for (boolean slotFilled : filled) {
+            if (!slotFilled) return ILLEGAL;
+        }
+        int side = mirrored ? opponent(board.sideToMove()) : board.sideToMove();
+        int index = indexOf(side, squares);
+        return index < 0 ? ILLEGAL : get(index);
+    }
+
+    // ===== 文件读写 =====
+
+    public void write(Path file) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.write(header());
+            for (long word : packed) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    private byte[] header() throws IOException {
+        byte[] name = signature.getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(bits);
+        out.writeInt(size);
+        out.writeInt(name.length);
+        out.write(name);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 读取残局库文件
+     *
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public static EndgameTable read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("残局库文件格式错误: " + file);
+            }
+            int bits = buffer.getInt();
+            int size = buffer.getInt();
+            if (bits < 1 || bits > 8) {
+                throw new IOException("残局库文件格式错误: " + file);
+            }
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            String signature = new String(name, StandardCharsets.US_ASCII);
+
+            int perWord = 64 / bits;
+            long[] packed = new long[(size + perWord - 1) / perWord];
+            if (buffer.remaining() != packed.length * 8L) {
+                throw new IOException("残局库文件长度错误: " + file);
+            }
+            buffer.asLongBuffer().get(packed);
+            EndgameTable table = new EndgameTable(signature, bits, packed);
+            if (table.size != size) {
+                throw new IOException("残局库文件与签名不一致: " + file);
+            }
+            return table;
+        }
+    }
+
+    // ===== 签名 =====
+
+    /**
+     * 解析签名，返回按槽顺序排列的棋子编码
+     *
+     * @throws IllegalArgumentException 签名格式错误
+     */
+    static int[] parseSignature(String signature) {
+        int blackStart = signature.indexOf('K', 1);
+        if (!signature.startsWith("K") || blackStart < 0) {
+            throw new IllegalArgumentException("残局库签名错误: " + signature);
+        }
+        int[] pieces = new int[signature.length()];
+        for (int i = 0; i < signature.length(); i++) {
+            int type = SIGNATURE_PIECES.indexOf(signature.charAt(i)) + 1;
+            if (type == EMPTY || (type == KING && i != 0 && i != blackStart)) {
+                throw new IllegalArgumentException("残局库签名错误: " + signature);
+            }
+            pieces[i] = type | sideFlag(i < blackStart ? RED : BLACK);
+        }
+        return pieces;
+    }
+
+    /**
+     * 规范化签名：每一方的棋子按 K A B N R C P 排序
+     */
+    public static String normalize(String signature) {
+        int[] pieces = parseSignature(signature.toUpperCase());
+        return signatureOf(pieces);
+    }
+
+    /**
+     * 棋盘上的子力组合对应的签名，mirrored 为 true 时交换红黑双方
+     */
+    public static String signatureOf(Board board, boolean mirrored) {
+        List<Integer> pieces = new ArrayList<>();
+        for (int sq : SQUARES) {
+            int piece = board.pieceAt(sq);
+            if (piece == EMPTY) continue;
+            pieces.add(mirrored ? typeOf(piece) | sideFlag(opponent(sideOf(piece))) : piece);
+        }
+        return signatureOf(pieces.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static String signatureOf(int[] pieces) {
+        StringBuilder red = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int type = KING; type <= PAWN; type++) {
+            for (int piece : pieces) {
+                if (typeOf(piece) != type) continue;
+                (sideOf(piece) == RED ? red : black).append(SIGNATURE_PIECES.charAt(type - 1));
+            }
+        }
+        return red.toString() + black;
+    }
+
+    /**
+     * 去掉一个槽的棋子（被吃掉）后的签名
+     */
+    static String without(String signature, int slot) {
+        return signature.substring(0, slot) + signature.substring(slot + 1);
+    }
+
+    // 棋子可能出现的格子（按红方规定，黑方上下翻转）
+    private static int[] allowedSquares(int piece) {
+        int side = sideOf(piece);
+        List<Integer> squares = new ArrayList<>();
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) {
+                int redY = side == RED ? y : ROWS - 1 - y;
+                boolean allowed = switch (typeOf(piece)) {
+                    case KING -> x >= 3 && x <= 5 && redY >= 7;
+                    case ADVISOR -> redY >= 7 && (x == 4 ? redY == 8 : (x == 3 || x == 5) && redY != 8);
+                    case BISHOP -> (redY == 5 || redY == 9) && (x == 2 || x == 6)
+                            || redY == 7 && x % 4 == 0;
+                    case PAWN -> redY <= 4 || redY <= 6 && x % 2 == 0;
+                    default -> true;
+                };
+                if (allowed) squares.add(square(x, y));
+            }
+        }
+        return squares.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int mirror(int sq) {
+        return square(fileOf(sq), ROWS - 1 - rankOf(sq));
+    }
+}
@@ -0,0 +1,327 @@
+package UI.AI;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static UI.AI.Board.*;
+import static UI.AI.EndgameTable.DRAW;
+import static UI.AI.EndgameTable.DTM_BASE;
+import static UI.AI.EndgameTable.ILLEGAL;
+
+/**
+ * 残局库生成工具（逆向分析）
+ * 第 0 轮标出不可能的局面和已被将死的局面；之后第 n 轮（n 为奇数）找出有一步能走到“n - 1 步后被将死”的局面，
+ * 第 n 轮（n 为偶数）找出所有走法都走到对方胜局的局面，直到连续两轮没有新结果，其余局面为和棋。
+ * 每一轮把局面下标区间分给 ForkJoinPool 中的线程并行处理：奇数轮只写入胜局、读取上一轮的负局，
+ * 偶数轮只写入负局、读取胜局，同一轮内各线程互不影响。
+ * 吃子后的局面属于少一个棋子的子力组合，先递归生成这些表再生成当前表。
+ * 生成完成后再检查一遍：胜局的最短取胜走法、负局的最长抵抗走法都必须正好少一步，否则报错。
+ *
+ * 用法：java UI.AI.EndgameTableGenerator 输出目录 [签名...] [-threads N]
+ * 不指定签名时生成 KRKAABB（车对士象全）和 KNPK（马兵对将）。
+ */
+public class EndgameTableGenerator {
+
+    private static final String[] DEFAULT_SIGNATURES = {"KRKAABB", "KNPK"};
+    // 每个任务处理的局面数
+    private static final int CHUNK_SIZE = 1 << 14;
+    // 检查轮的编号
+    private static final int VERIFY = -1;
+
+    private final ForkJoinPool pool;
+    // 输出目录，为 null 时只在内存中生成
+    private final Path outputDirectory;
+    private final Map<String, EndgameTable> tables = new HashMap<>();
+    private final Map<String, Integer> longestMates = new HashMap<>();
+
+    public EndgameTableGenerator(ForkJoinPool pool, Path outputDirectory) {
+        this.pool = pool;
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * 生成指定子力组合的残局库（以及吃子后能到达的所有较小的残局库）
+     *
+     * @param signature 签名，例如 KRKAABB
+     * @return 生成的表
+     */
+    public EndgameTable generate(String signature) throws IOException {
+        signature = EndgameTable.normalize(signature);
+        EndgameTable existing = tables.get(signature);
+        if (existing != null) return existing;
+
+        EndgameTable layout = EndgameTable.layout(signature);
+        EndgameTable[] captureTables = new EndgameTable[layout.slotCount()];
+        int longestCaptureMate = 0;
+        for (int slot = 0; slot < layout.slotCount(); slot++) {
+            if (typeOf(layout.slotPiece(slot)) == KING) continue;
+            String captured = EndgameTable.without(signature, slot);
+            captureTables[slot] = generate(captured);
+            longestCaptureMate = Math.max(longestCaptureMate, longestMates.get(captured));
+        }
+
+        long startTime = System.currentTimeMillis();
+        byte[] values = new byte[layout.size()];
+        Pass pass = new Pass(layout, captureTables, values, 0);
+        pool.invoke(new Sweep(pass, 0, values.length));
+
+        // 吃子后的残局库中最长的将死步数之前不能停止，否则会漏掉经由吃子取胜的局面
+        int longestMate = 0;
+        int idleLevels = 0;
+        for (int level = 1; idleLevels < 2 || level <= longestCaptureMate + 1; level++) {
+            if (level > EndgameTable.MAX_DTM) {
+                throw new IllegalStateException("将死步数超出范围: " + signature);
+            }
+            int changed = pool.invoke(new Sweep(new Pass(layout, captureTables, values, level), 0, values.length));
+            if (changed > 0) {
+                longestMate = level;
+                idleLevels = 0;
+            } else {
+                idleLevels++;
+            }
+        }
+
+        int inconsistent = pool.invoke(new Sweep(new Pass(layout, captureTables, values, VERIFY), 0, values.length));
+        if (inconsistent > 0) {
+            throw new IllegalStateException("残局库 " + signature + " 有 " + inconsistent + " 个局面的将死步数不一致");
+        }
+
+        EndgameTable table = EndgameTable.pack(signature, values);
+        tables.put(signature, table);
+        longestMates.put(signature, longestMate);
+        report(signature, values, longestMate, System.currentTimeMillis() - startTime);
+        if (outputDirectory != null) {
+            table.write(outputDirectory.resolve(signature + EndgameTable.FILE_SUFFIX));
+        }
+        return table;
+    }
+
+    private static void report(String signature, byte[] values, int longestMate, long elapsedMs) {
+        long wins = 0, losses = 0, draws = 0;
+        for (byte value : values) {
+            int v = value & 0xff;
+            if (v == DRAW) {
+                draws++;
+            } else if (v >= DTM_BASE) {
+                if (((v - DTM_BASE) & 1) == 1) wins++;
+                else losses++;
+            }
+        }
+        System.out.println("残局库 " + signature + ": " + values.length + " 个局面, 胜 " + wins + ", 负 " + losses
+                + ", 和 " + draws + ", 最长 " + longestMate + " 步杀, 耗时 " + elapsedMs + "ms");
+    }
+
+    // 一轮分析共用的数据
+    private static final class Pass {
+        final EndgameTable table;
+        // 吃掉某个槽的棋子之后使用的残局库
+        final EndgameTable[] captureTables;
+        final byte[] values;
+        final int level;
+
+        Pass(EndgameTable table, EndgameTable[] captureTables, byte[] values, int level) {
+            this.table = table;
+            this.captureTables = captureTables;
+            this.values = values;
+            this.level = level;
+        }
+    }
+
+    // 处理一段下标区间，返回新确定的局面数
+    private static final class Sweep extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final Pass pass;
+        private final int from;
+        private final int to;
+
+        Sweep(Pass pass, int from, int to) {
+            this.pass = pass;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return new Worker(pass).run(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Sweep left = new Sweep(pass, from, middle);
+            left.fork();
+            int right = new Sweep(pass, middle, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    // 单个线程的棋盘和缓冲区
+    private static final class Worker {
+        private final Pass pass;
+        private final EndgameTable table;
+        private final Board board = new Board();
+        private final int[] squares;
+        private final int[] childSquares;
+        private final int[] captureSquares;
+        private final int[] slotOfSquare = new int[256];
+        private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        private final List<Integer> placed = new ArrayList<>();
+
+        Worker(Pass pass) {
+            this.pass = pass;
+            this.table = pass.table;
+            this.squares = new int[table.slotCount()];
+            this.childSquares = new int[table.slotCount()];
+            this.captureSquares = new int[Math.max(0, table.slotCount() - 1)];
+        }
+
+        int run(int from, int to) {
+            int changed = 0;
+            int level = pass.level;
+            byte[] values = pass.values;
+            for (int index = from; index < to; index++) {
+                if (level == VERIFY) {
+                    int value = values[index] & 0xff;
+                    if (value > DTM_BASE && !consistent(table.decode(index, squares), value)) changed++;
+                    continue;
+                }
+                if (level > 0 && values[index] != DRAW) continue;
+                int side = table.decode(index, squares);
+                if (!setUp(side)) {
+                    values[index] = (byte) ILLEGAL;
+                    continue;
+                }
+
+                int result = level == 0 ? initialValue(side) : analyse(side, level);
+                if (result != DRAW) {
+                    values[index] = (byte) result;
+                    changed++;
+                }
+            }
+            return changed;
+        }
+
+        // 把下标对应的局面摆到棋盘上，棋子重叠时返回 false
+        private boolean setUp(int side) {
+            for (int sq : placed) {
+                board.removePiece(sq);
+            }
+            placed.clear();
+            for (int slot = 0; slot < squares.length; slot++) {
+                int sq = squares[slot];
+                if (board.pieceAt(sq) != EMPTY) return false;
+                board.addPiece(sq, table.slotPiece(slot));
+                slotOfSquare[sq] = slot;
+                placed.add(sq);
+            }
+            board.setSideToMove(side);
+            return true;
+        }
+
+        // 第 0 轮：不可能的局面和已被将死的局面
+        private int initialValue(int side) {
+            if (MoveGenerator.isInCheck(board, opponent(side)) || MoveGenerator.isKingsFacing(board)) {
+                return ILLEGAL;
+            }
+            int count = MoveGenerator.generateMoves(board, moves);
+            for (int i = 0; i < count; i++) {
+                if (MoveGenerator.isLegal(board, Move.from(moves[i]), Move.to(moves[i]))) return DRAW;
+            }
+            // 无子可动：被将军为负，困毙按本程序的规则判和
+            return MoveGenerator.isInCheck(board, side) ? DTM_BASE : DRAW;
+        }
+
+        // 第 level 轮：奇数轮找一步走到对方负局的局面，偶数轮找所有走法都走到对方胜局的局面
+        private int analyse(int side, int level) {
+            boolean winLevel = (level & 1) == 1;
+            int count = MoveGenerator.generateMoves(board, moves);
+            int legalMoves = 0;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (!MoveGenerator.isLegal(board, Move.from(move), Move.to(move))) continue;
+                legalMoves++;
+                int child = childValue(side, move);
+                if (winLevel) {
+                    if (child == DTM_BASE + level - 1) return DTM_BASE + level;
+                } else if (child < DTM_BASE || ((child - DTM_BASE) & 1) == 0 || child > DTM_BASE + level - 1) {
+                    // 能走到和棋、对方负局，或者吃子后对方还要更多步才能取胜时，这一轮还不能确定
+                    return DRAW;
+                }
+            }
+            return !winLevel && legalMoves > 0 ? DTM_BASE + level : DRAW;
+        }
+
+        // 检查轮：胜局中走到对方负局的最短步数、负局中所有走法的最长步数都应为 value - 1
+        private boolean consistent(int side, int value) {
+            setUp(side);
+            boolean win = ((value - DTM_BASE) & 1) == 1;
+            int best = win ? Integer.MAX_VALUE : 0;
+            int count = MoveGenerator.generateMoves(board, moves);
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (!MoveGenerator.isLegal(board, Move.from(move), Move.to(move))) continue;
+                int child = childValue(side, move);
+                if (win) {
+                    if (child >= DTM_BASE && ((child - DTM_BASE) & 1) == 0) best = Math.min(best, child);
+                } else {
+                    if (child < DTM_BASE || ((child - DTM_BASE) & 1) == 0) return false;
+                    best = Math.max(best, child);
+                }
+            }
+            return best == value - 1;
+        }
+
+        // 走完一步之后的局面的值（相对于对方）
+        private int childValue(int side, int move) {
+            int movedSlot = slotOfSquare[Move.from(move)];
+            System.arraycopy(squares, 0, childSquares, 0, squares.length);
+            childSquares[movedSlot] = Move.to(move);
+
+            if (!Move.isCapture(move)) {
+                int index = table.indexOf(opponent(side), childSquares);
+                return index < 0 ? DRAW : pass.values[index] & 0xff;
+            }
+            int capturedSlot = slotOfSquare[Move.to(move)];
+            EndgameTable captureTable = pass.captureTables[capturedSlot];
+            for (int slot = 0, n = 0; slot < childSquares.length; slot++) {
+                if (slot != capturedSlot) captureSquares[n++] = childSquares[slot];
+            }
+            int index = captureTable.indexOf(opponent(side), captureSquares);
+            return index < 0 ? DRAW : captureTable.get(index);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-threads".equals(args[i])) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        if (rest.isEmpty()) {
+            System.out.println("用法: java UI.AI.EndgameTableGenerator 输出目录 [签名...] [-threads N]");
+            return;
+        }
+
+        Path directory = Paths.get(rest.get(0));
+        Files.createDirectories(directory);
+        List<String> signatures = rest.size() > 1 ? rest.subList(1, rest.size()) : List.of(DEFAULT_SIGNATURES);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        EndgameTableGenerator generator = new EndgameTableGenerator(pool, directory);
+        for (String signature : signatures) {
+            generator.generate(signature);
+        }
+        pool.shutdown();
+    }
+}
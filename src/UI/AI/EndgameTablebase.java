@@ -0,0 +1,107 @@
+package UI.AI;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static UI.AI.EndgameTable.DTM_BASE;
+import static UI.AI.EndgameTable.ILLEGAL;
+
+/**
+ * 残局库集合
+ * 按棋盘上的子力组合找到对应的 EndgameTable 查询；强方为黑方时查询上下翻转、交换红黑后的表。
+ */
+public final class EndgameTablebase {
+
+    // 没有对应的残局库
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, EndgameTable> tables = new HashMap<>();
+    private int maxPieces = 0;
+
+    /**
+     * 读取目录中的所有残局库文件（EndgameTableGenerator 生成的 .xqtb 文件）
+     */
+    public static EndgameTablebase load(Path directory) throws IOException {
+        EndgameTablebase tablebase = new EndgameTablebase();
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(EndgameTable.FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            tablebase.add(EndgameTable.read(file));
+        }
+        return tablebase;
+    }
+
+    public void add(EndgameTable table) {
+        tables.put(table.getSignature(), table);
+        maxPieces = Math.max(maxPieces, table.pieceCount());
+    }
+
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * 查询局面
+     *
+     * @return 相对于走子方的值（见 EndgameTable），没有对应的残局库时返回 UNKNOWN
+     */
+    public int probe(Board board) {
+        if (board.pieceCount() > maxPieces) return UNKNOWN;
+        int value = ILLEGAL;
+        EndgameTable table = tables.get(EndgameTable.signatureOf(board, false));
+        if (table != null) {
+            value = table.probe(board, false);
+        } else {
+            table = tables.get(EndgameTable.signatureOf(board, true));
+            if (table != null) {
+                value = table.probe(board, true);
+            }
+        }
+        return value == ILLEGAL ? UNKNOWN : value;
+    }
+
+    /**
+     * 胜局或负局中的最佳走法：胜局走最快的杀棋，负局拖延最久
+     *
+     * @return 走法编码，和棋或没有对应的残局库时返回 Move.NONE，由搜索决定
+     */
+    public int bestMove(Board board) {
+        int value = probe(board);
+        if (value < DTM_BASE) return Move.NONE;
+        boolean winning = ((value - DTM_BASE) & 1) == 1;
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        int bestMove = Move.NONE;
+        int bestChild = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!MoveGenerator.isLegal(board, Move.from(move), Move.to(move))) continue;
+            board.doMove(Move.from(move), Move.to(move));
+            int child = probe(board);
+            board.undoMove();
+            if (child < DTM_BASE) continue;
+
+            if (winning) {
+                if (child == value - 1) return move;
+            } else if (child > bestChild) {
+                bestMove = move;
+                bestChild = child;
+            }
+        }
+        return bestMove;
+    }
+}
@@ -0,0 +1,285 @@
+package UI.AI;
+
+import static UI.AI.Board.*;
+
+/**
+ * 局面评估
+ * 子力价值和位置分合并成一张 [棋子编码][格子] 的子力位置表，Board 在 addPiece/removePiece 时增量累加，
+ * 叶子节点评估只需要读取双方的累加值，再加上只和两个将/帅有关的将帅安全项。
+ * 位置表按红方视角书写（第 0 行是黑方底线），黑方棋子使用上下翻转后的同一张表。
+ */
+public final class Evaluator {
+
+    // 棋子价值常量
+    public static final int KING_VALUE = 10000;
+    public static final int ROOK_VALUE = 90;
+    public static final int KNIGHT_VALUE = 40;
+    public static final int CANNON_VALUE = 45;
+    public static final int ADVISOR_VALUE = 20;
+    public static final int BISHOP_VALUE = 20;
+    public static final int PAWN_VALUE = 10;
+
+    private static final int[] ORTHOGONAL = {-16, -1, 1, 16};
+
+    // ===== 位置分（红方视角，[y * 9 + x]）=====
+
+    private static final int[] KING_POSITION = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, -8, -6, -8, 0, 0, 0,
+            0, 0, 0, -4, -2, -4, 0, 0, 0,
+            0, 0, 0, 0, 2, 0, 0, 0, 0
+    };
+
+    private static final int[] ADVISOR_POSITION = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 2, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] BISHOP_POSITION = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, -2, 0, 0, 0, -2, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            -2, 0, 0, 0, 2, 0, 0, 0, -2,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] KNIGHT_POSITION = {
+            2, 4, 6, 6, 4, 6, 6, 4, 2,
+            4, 8, 10, 12, 8, 12, 10, 8, 4,
+            4, 8, 12, 14, 14, 14, 12, 8, 4,
+            4, 10, 12, 14, 14, 14, 12, 10, 4,
+            2, 8, 10, 12, 12, 12, 10, 8, 2,
+            2, 6, 8, 10, 10, 10, 8, 6, 2,
+            2, 4, 6, 8, 6, 8, 6, 4, 2,
+            0, 2, 4, 4, 6, 4, 4, 2, 0,
+            -2, 0, 2, 2, -4, 2, 2, 0, -2,
+            -4, -2, 0, -2, 0, -2, 0, -2, -4
+    };
+
+    private static final int[] ROOK_POSITION = {
+            4, 6, 6, 8, 8, 8, 6, 6, 4,
+            6, 8, 8, 10, 12, 10, 8, 8, 6,
+            4, 6, 6, 8, 8, 8, 6, 6, 4,
+            4, 6, 6, 8, 8, 8, 6, 6, 4,
+            4, 6, 6, 8, 8, 8, 6, 6, 4,
+            2, 6, 6, 8, 8, 8, 6, 6, 2,
+            0, 4, 4, 6, 6, 6, 4, 4, 0,
+            -2, 4, 2, 6, 6, 6, 2, 4, -2,
+            2, 4, 2, 6, 0, 6, 2, 4, 2,
+            -4, 4, 2, 6, 0, 6, 2, 4, -4
+    };
+
+    private static final int[] CANNON_POSITION = {
+            4, 4, 0, -2, -4, -2, 0, 4, 4,
+            2, 2, 0, -2, -2, -2, 0, 2, 2,
+            2, 2, 0, 0, 2, 0, 0, 2, 2,
+            0, 0, 0, 0, 4, 0, 0, 0, 0,
+            0, 0, 0, 0, 4, 0, 0, 0, 0,
+            0, 0, 2, 0, 4, 0, 2, 0, 0,
+            0, 0, 0, 0, 2, 0, 0, 0, 0,
+            2, 0, 4, 2, 6, 2, 4, 0, 2,
+            0, 2, 2, 2, 2, 2, 2, 2, 0,
+            0, 0, 2, 4, 4, 4, 2, 0, 0
+    };
+
+    // 兵/卒：过河后加 20 分，越靠近对方九宫越高
+    private static final int[] PAWN_POSITION = {
+            20, 20, 22, 24, 26, 24, 22, 20, 20,
+            22, 26, 28, 32, 34, 32, 28, 26, 22,
+            22, 26, 28, 30, 32, 30, 28, 26, 22,
+            20, 24, 26, 28, 28, 28, 26, 24, 20,
+            20, 22, 24, 26, 26, 26, 24, 22, 20,
+            0, 0, 2, 0, 4, 0, 2, 0, 0,
+            0, 0, 0, 0, 2, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    // 子力价值 + 位置分，[棋子编码][格子]
+    static final int[][] PIECE_SQUARE_VALUES = new int[24][256];
+
+    static {
+        int[][] positions = new int[8][];
+        positions[KING] = KING_POSITION;
+        positions[ADVISOR] = ADVISOR_POSITION;
+        positions[BISHOP] = BISHOP_POSITION;
+        positions[KNIGHT] = KNIGHT_POSITION;
+        positions[ROOK] = ROOK_POSITION;
+        positions[CANNON] = CANNON_POSITION;
+        positions[PAWN] = PAWN_POSITION;
+
+        for (int type = KING; type <= PAWN; type++) {
+            int value = pieceValue(type);
+            for (int sq : SQUARES) {
+                int x = fileOf(sq);
+                int y = rankOf(sq);
+                PIECE_SQUARE_VALUES[RED_FLAG | type][sq] = value + positions[type][y * COLS + x];
+                PIECE_SQUARE_VALUES[BLACK_FLAG | type][sq] = value + positions[type][(ROWS - 1 - y) * COLS + x];
+            }
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    /**
+     * 获取棋子基础价值
+     *
+     * @param piece 棋子编码（或棋子类型）
+     * @return 棋子价值
+     */
+    public static int pieceValue(int piece) {
+        return switch (typeOf(piece)) {
+            case KING -> KING_VALUE;
+            case ROOK -> ROOK_VALUE;
+            case KNIGHT -> KNIGHT_VALUE;
+            case CANNON -> CANNON_VALUE;
+            case ADVISOR -> ADVISOR_VALUE;
+            case BISHOP -> BISHOP_VALUE;
+            case PAWN -> PAWN_VALUE;
+            default -> 0;
+        };
+    }
+
+    /**
+     * 局面评估函数
+     * 从指定执子方角度评估：分数越高对该方越有利。
+     * 子力和位置分取自 Board 的增量累加值，只额外计算双方将/帅的安全项。
+     *
+     * @param board 棋盘状态
+     * @param side 评估的执子方
+     * @return 评估分数
+     */
+    public static int evaluate(Board board, int side) {
+        int opponent = opponent(side);
+        return board.pieceSquareScore(side) - board.pieceSquareScore(opponent)
+                + kingSafety(board, side) - kingSafety(board, opponent);
+    }
+
+    /**
+     * 参考实现：扫描整个棋盘重新计算评估分数，结果必须与 evaluate 完全相同（由 main 中的自检验证）
+     */
+    public static int evaluateFull(Board board, int side) {
+        int score = 0;
+        for (int sq : SQUARES) {
+            int piece = board.pieceAt(sq);
+            if (piece == EMPTY) continue;
+            if (sideOf(piece) == side) {
+                score += PIECE_SQUARE_VALUES[piece][sq];
+            } else {
+                score -= PIECE_SQUARE_VALUES[piece][sq];
+            }
+        }
+        return score + kingSafety(board, side) - kingSafety(board, opponent(side));
+    }
+
+    /**
+     * 将/帅安全评估
+     * 周围每个己方棋子保护加 5 分，5x5 范围内有对方棋子时减 30 分
+     */
+    private static int kingSafety(Board board, int side) {
+        int kingSq = board.kingSquare(side);
+        if (kingSq == 0) return 0;
+        int score = countProtection(board, kingSq, side) * 5;
+        if (isUnderAttack(board, kingSq, side)) {
+            score -= 30;
+        }
+        return score;
+    }
+
+    /**
+     * 计算指定位置的棋子受到的保护数量
+     * 这里简化处理，只统计同一行或同一列上距离不超过 2 的己方棋子
+     */
+    private static int countProtection(Board board, int sq, int side) {
+        int count = 0;
+        int sideFlag = sideFlag(side);
+        for (int delta : ORTHOGONAL) {
+            for (int target = sq + delta; target != sq + delta * 3; target += delta) {
+                if (inBoard(target) && (board.pieceAt(target) & sideFlag) != 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 检查指定位置是否被对方攻击
+     * 简化检查：只需检查 5x5 范围内是否有对方棋子
+     */
+    private static boolean isUnderAttack(Board board, int sq, int mySide) {
+        int opponentFlag = sideFlag(opponent(mySide));
+        for (int dy = -2; dy <= 2; dy++) {
+            for (int dx = -2; dx <= 2; dx++) {
+                int target = sq + dy * 16 + dx;
+                if (inBoard(target) && (board.pieceAt(target) & opponentFlag) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 自检：从 Perft 的测试局面出发遍历 depth 步以内的所有局面，比较增量评估 evaluate 与全盘重算的
+     * evaluateFull（双方视角），并检查撤销走法后增量值是否恢复。
+     *
+     * 用法：java UI.AI.Evaluator [depth]，默认深度 3
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        boolean passed = true;
+        for (String fen : Perft.TEST_FENS) {
+            // 检查的局面数、不一致的次数
+            long[] result = new long[2];
+            long start = System.nanoTime();
+            verify(Board.fromFen(fen), depth, new int[depth + 1][MoveGenerator.MAX_MOVES], result);
+            System.out.println(fen);
+            System.out.println("  深度 " + depth + ": " + result[0] + " 个局面, " + (System.nanoTime() - start) / 1_000_000 + "ms"
+                    + (result[1] > 0 ? ", 错误: " + result[1] + " 处不一致" : ""));
+            passed &= result[1] == 0;
+        }
+        System.out.println(passed ? "增量评估全部一致" : "增量评估存在错误");
+    }
+
+    private static void verify(Board board, int depth, int[][] moveStack, long[] result) {
+        result[0]++;
+        int red = evaluate(board, RED);
+        int black = evaluate(board, BLACK);
+        if (red != evaluateFull(board, RED) || black != evaluateFull(board, BLACK)) result[1]++;
+        if (depth == 0) return;
+
+        int[] moves = moveStack[depth];
+        int count = MoveGenerator.generateMoves(board, moves);
+        for (int i = 0; i < count; i++) {
+            int from = Move.from(moves[i]);
+            int to = Move.to(moves[i]);
+            if (!MoveGenerator.isLegal(board, from, to)) continue;
+            board.doMove(from, to);
+            verify(board, depth - 1, moveStack, result);
+            board.undoMove();
+            if (evaluate(board, RED) != red || evaluate(board, BLACK) != black) result[1]++;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package UI.AI;
+
+import java.util.Arrays;
+
+/**
+ * 堆内置换表，用于较小的表
+ * 每个条目占两个 long：第一个保存 key ^ data，第二个保存 data，读取时用异或校验，
+ * 这样不需要加锁，读到被并发写坏的条目也只会当作未命中。
+ * 替换策略：同一局面、更深的搜索或者来自旧搜索的条目可以被覆盖（深度优先）。
+ */
+public class HeapTranspositionTable implements TranspositionTable {
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] table;
+    private final int mask;
+    private int age = 0;
+
+    /**
+     * @param sizeMb 置换表大小（MB），实际条目数取不超过该大小的 2 的幂
+     */
+    public HeapTranspositionTable(int sizeMb) {
+        long entries = Math.max(1L, (long) sizeMb) * 1024 * 1024 / BYTES_PER_ENTRY;
+        int count = Integer.highestOneBit((int) Math.min(entries, 1 << 28));
+        this.table = new long[count * 2];
+        this.mask = count - 1;
+    }
+
+    @Override
+    public void newSearch() {
+        age = (age + 1) & 0xff;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    @Override
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        if (data != 0 && (table[index] ^ data) == key) {
+            return data;
+        }
+        return 0;
+    }
+
+    @Override
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = ((int) key & mask) << 1;
+        long oldData = table[index + 1];
+        if (oldData != 0) {
+            boolean sameKey = (table[index] ^ oldData) == key;
+            boolean sameAge = TranspositionTable.entryAge(oldData) == age;
+            if (!sameKey && sameAge && TranspositionTable.entryDepth(oldData) > depth) {
+                return;
+            }
+            // 同一局面的浅层结果没有新走法时保留原来的最佳走法
+            if (sameKey && move == Move.NONE) {
+                move = TranspositionTable.entryMove(oldData);
+            }
+        }
+        long data = TranspositionTable.packEntry(depth, bound, score, move, age);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+}
@@ -0,0 +1,123 @@
+package UI.AI;
+
+import UI.MainGameUI.ChessPiece;
+import UI.MainGameUI.GameMove;
+
+import static UI.AI.Board.*;
+
+/**
+ * 走法的 32 位整数编码，搜索内部只使用 int 表示走法，不创建对象
+ * 位布局：
+ * 0-7   起点格子
+ * 8-15  终点格子
+ * 16-20 走动的棋子编码
+ * 21-25 被吃的棋子编码（没有则为 0）
+ * 26-31 标志位
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    // 标志位：吃子
+    public static final int FLAG_CAPTURE = 1 << 26;
+
+    private Move() {
+    }
+
+    public static int create(int from, int to, int piece, int captured) {
+        int move = from | (to << 8) | (piece << 16) | (captured << 21);
+        if (captured != EMPTY) {
+            move |= FLAG_CAPTURE;
+        }
+        return move;
+    }
+
+    public static int from(int move) {
+        return move & 0xff;
+    }
+
+    public static int to(int move) {
+        return (move >> 8) & 0xff;
+    }
+
+    public static int piece(int move) {
+        return (move >> 16) & 0x1f;
+    }
+
+    public static int captured(int move) {
+        return (move >> 21) & 0x1f;
+    }
+
+    public static int flags(int move) {
+        return move >>> 26;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & FLAG_CAPTURE) != 0;
+    }
+
+    /**
+     * 只保留起点和终点的 16 位形式，用于在置换表等处比较走法
+     */
+    public static int fromTo(int move) {
+        return move & 0xffff;
+    }
+
+    /**
+     * ICCS 坐标记法，例如 h2e2：列为 a~i，行为 0~9（红方底线为 0）
+     */
+    public static String toIccs(int move) {
+        return squareName(from(move)) + squareName(to(move));
+    }
+
+    private static String squareName(int sq) {
+        return "" + (char) ('a' + fileOf(sq)) + (ROWS - 1 - rankOf(sq));
+    }
+
+    /**
+     * 解析 ICCS 坐标记法（不区分大小写）
+     *
+     * @param board 当前局面，只接受其中走子方的合法走法
+     * @param iccs 例如 h2e2
+     * @return 走法编码，格式错误或不是合法走法时返回 NONE
+     */
+    public static int fromIccs(Board board, String iccs) {
+        if (iccs == null || iccs.length() != 4) return NONE;
+        String text = iccs.toLowerCase();
+        int from = parseSquare(text.charAt(0), text.charAt(1));
+        int to = parseSquare(text.charAt(2), text.charAt(3));
+        if (from < 0 || to < 0) return NONE;
+
+        int piece = board.pieceAt(from);
+        if (piece == EMPTY || sideOf(piece) != board.sideToMove()) return NONE;
+        int[] targets = new int[MoveGenerator.MAX_TARGETS];
+        int count = MoveGenerator.generateTargets(board, from, targets);
+        for (int i = 0; i < count; i++) {
+            if (targets[i] == to) {
+                return MoveGenerator.isLegal(board, from, to) ? create(from, to, piece, board.pieceAt(to)) : NONE;
+            }
+        }
+        return NONE;
+    }
+
+    private static int parseSquare(char file, char rank) {
+        int x = file - 'a';
+        int y = ROWS - 1 - (rank - '0');
+        if (x < 0 || x >= COLS || y < 0 || y >= ROWS) return -1;
+        return square(x, y);
+    }
+
+    /**
+     * 转换为界面使用的 GameMove（只在搜索结果返回时调用）
+     */
+    public static GameMove toGameMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int piece = piece(move);
+        int captured = captured(move);
+        ChessPiece capturedPiece = captured == EMPTY ? null
+                : new ChessPiece(captured, fileOf(to), rankOf(to));
+        return new GameMove(fileOf(from), rankOf(from), fileOf(to), rankOf(to), 0,
+                pieceName(piece), colorOf(sideOf(piece)), capturedPiece);
+    }
+}
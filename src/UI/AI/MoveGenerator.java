@@ -0,0 +1,395 @@
+package UI.AI;
+
+import static UI.AI.Board.*;
+
+/**
+ * 走法生成器
+ * 按棋子类型直接生成可以到达的目标格子，不再对棋盘上的 90 个格子逐一试探：
+ * 车、炮沿四个方向逐格走；马、象使用预先计算好的目标表并检查马腿、象眼；
+ * 将、士使用九宫表，兵使用按执子方区分的表。
+ */
+public class MoveGenerator {
+
+    // 单个棋子最多的目标格数量（车、炮在空旷棋盘上为 17 个）
+    public static final int MAX_TARGETS = 17;
+    // 一个局面最多的伪合法走法数量
+    public static final int MAX_MOVES = 256;
+
+    private static final int[] ORTHOGONAL = {-16, -1, 1, 16};
+    private static final int[] DIAGONAL = {-17, -15, 15, 17};
+    private static final int[] KNIGHT_DELTAS = {-33, -31, -18, -14, 14, 18, 31, 33};
+    // 与 KNIGHT_DELTAS 一一对应的马腿偏移
+    private static final int[] KNIGHT_LEG_DELTAS = {-16, -16, -1, 1, -1, 1, 16, 16};
+
+    // 预先计算的目标表，[执子方][格子] 或 [格子]
+    private static final int[][][] KING_TARGETS = new int[2][256][];
+    private static final int[][][] ADVISOR_TARGETS = new int[2][256][];
+    private static final int[][][] BISHOP_TARGETS = new int[2][256][];
+    private static final int[][][] PAWN_TARGETS = new int[2][256][];
+    private static final int[][] KNIGHT_TARGETS = new int[256][];
+    private static final int[][] KNIGHT_LEGS = new int[256][];
+
+    static {
+        int[] buffer = new int[8];
+        int[] legBuffer = new int[8];
+        for (int sq = 0; sq < 256; sq++) {
+            for (int side = RED; side <= BLACK; side++) {
+                KING_TARGETS[side][sq] = new int[0];
+                ADVISOR_TARGETS[side][sq] = new int[0];
+                BISHOP_TARGETS[side][sq] = new int[0];
+                PAWN_TARGETS[side][sq] = new int[0];
+            }
+            KNIGHT_TARGETS[sq] = new int[0];
+            KNIGHT_LEGS[sq] = new int[0];
+        }
+
+        for (int sq : SQUARES) {
+            for (int side = RED; side <= BLACK; side++) {
+                // 将/帅：九宫内直走一步
+                int n = 0;
+                for (int delta : ORTHOGONAL) {
+                    if (inPalace(side, sq + delta)) buffer[n++] = sq + delta;
+                }
+                KING_TARGETS[side][sq] = copyOf(buffer, n);
+
+                // 士/仕：九宫内斜走一步
+                n = 0;
+                for (int delta : DIAGONAL) {
+                    if (inPalace(side, sq + delta)) buffer[n++] = sq + delta;
+                }
+                ADVISOR_TARGETS[side][sq] = copyOf(buffer, n);
+
+                // 象/相：斜走两步且不过河，象眼为起点与终点的中点
+                n = 0;
+                for (int delta : DIAGONAL) {
+                    int to = sq + delta * 2;
+                    if (inBoard(to) && isOwnHalf(side, to)) buffer[n++] = to;
+                }
+                BISHOP_TARGETS[side][sq] = copyOf(buffer, n);
+
+                // 兵/卒：向前一步，过河后可以左右走
+                n = 0;
+                int forward = side == RED ? -16 : 16;
+                if (inBoard(sq + forward)) buffer[n++] = sq + forward;
+                if (!isOwnHalf(side, sq)) {
+                    if (inBoard(sq - 1)) buffer[n++] = sq - 1;
+                    if (inBoard(sq + 1)) buffer[n++] = sq + 1;
+                }
+                PAWN_TARGETS[side][sq] = copyOf(buffer, n);
+            }
+
+            // 马：日字，记录对应的马腿
+            int n = 0;
+            for (int i = 0; i < KNIGHT_DELTAS.length; i++) {
+                int to = sq + KNIGHT_DELTAS[i];
+                if (inBoard(to)) {
+                    legBuffer[n] = sq + KNIGHT_LEG_DELTAS[i];
+                    buffer[n++] = to;
+                }
+            }
+            KNIGHT_TARGETS[sq] = copyOf(buffer, n);
+            KNIGHT_LEGS[sq] = copyOf(legBuffer, n);
+        }
+    }
+
+    private static int[] copyOf(int[] buffer, int n) {
+        int[] result = new int[n];
+        System.arraycopy(buffer, 0, result, 0, n);
+        return result;
+    }
+
+    private static boolean inPalace(int side, int sq) {
+        if (!inBoard(sq)) return false;
+        int x = fileOf(sq);
+        int y = rankOf(sq);
+        if (x < 3 || x > 5) return false;
+        return side == RED ? y >= 7 : y <= 2;
+    }
+
+    private static boolean isOwnHalf(int side, int sq) {
+        return side == RED ? rankOf(sq) >= 5 : rankOf(sq) <= 4;
+    }
+
+    /**
+     * 生成指定格子上棋子的所有伪合法目标格（不检查送将）
+     *
+     * @param board 棋盘
+     * @param from 棋子所在格子
+     * @param targets 输出数组，长度至少为 MAX_TARGETS
+     * @return 目标格数量
+     */
+    public static int generateTargets(Board board, int from, int[] targets) {
+        return collectTargets(board, from, targets, 0);
+    }
+
+    /**
+     * 生成当前走子方的所有伪合法走法（Move 编码），写入 moves
+     *
+     * @param board 棋盘
+     * @param moves 输出数组，长度至少为 MAX_MOVES
+     * @return 走法数量
+     */
+    public static int generateMoves(Board board, int[] moves) {
+        int selfFlag = sideFlag(board.sideToMove());
+        int n = 0;
+        for (int from : SQUARES) {
+            int piece = board.pieceAt(from);
+            if ((piece & selfFlag) == 0) continue;
+
+            int start = n;
+            n = collectTargets(board, from, moves, n);
+            for (int i = start; i < n; i++) {
+                int to = moves[i];
+                moves[i] = Move.create(from, to, piece, board.pieceAt(to));
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 只生成当前走子方的吃子走法，供静态搜索使用
+     * 车、炮只找每个方向上第一个可吃的棋子，不枚举中间的空格
+     *
+     * @param board 棋盘
+     * @param moves 输出数组，长度至少为 MAX_MOVES
+     * @return 吃子走法数量
+     */
+    public static int generateCaptures(Board board, int[] moves) {
+        int side = board.sideToMove();
+        int opponentFlag = sideFlag(opponent(side));
+        int n = 0;
+        for (int from : SQUARES) {
+            int piece = board.pieceAt(from);
+            if (piece == EMPTY || sideOf(piece) != side) continue;
+
+            int start = n;
+            n = collectCaptures(board, from, piece, opponentFlag, moves, n);
+            for (int i = start; i < n; i++) {
+                int to = moves[i];
+                moves[i] = Move.create(from, to, piece, board.pieceAt(to));
+            }
+        }
+        return n;
+    }
+
+    // 把 from 上棋子能吃到的对方棋子所在格子写入 targets[n...]
+    private static int collectCaptures(Board board, int from, int piece, int opponentFlag, int[] targets, int n) {
+        int side = sideOf(piece);
+        switch (typeOf(piece)) {
+            case KING -> n = addCaptures(board, KING_TARGETS[side][from], opponentFlag, targets, n);
+            case ADVISOR -> n = addCaptures(board, ADVISOR_TARGETS[side][from], opponentFlag, targets, n);
+            case BISHOP -> {
+                for (int to : BISHOP_TARGETS[side][from]) {
+                    if ((board.pieceAt(to) & opponentFlag) != 0 && board.pieceAt((from + to) >> 1) == EMPTY) {
+                        targets[n++] = to;
+                    }
+                }
+            }
+            case KNIGHT -> {
+                int[] knightTargets = KNIGHT_TARGETS[from];
+                int[] legs = KNIGHT_LEGS[from];
+                for (int i = 0; i < knightTargets.length; i++) {
+                    int to = knightTargets[i];
+                    if ((board.pieceAt(to) & opponentFlag) != 0 && board.pieceAt(legs[i]) == EMPTY) {
+                        targets[n++] = to;
+                    }
+                }
+            }
+            case ROOK -> {
+                for (int delta : ORTHOGONAL) {
+                    int to = from + delta;
+                    while (inBoard(to) && board.pieceAt(to) == EMPTY) to += delta;
+                    if (inBoard(to) && (board.pieceAt(to) & opponentFlag) != 0) targets[n++] = to;
+                }
+            }
+            case CANNON -> {
+                for (int delta : ORTHOGONAL) {
+                    int to = from + delta;
+                    while (inBoard(to) && board.pieceAt(to) == EMPTY) to += delta;
+                    // 翻过炮架
+                    for (to += delta; inBoard(to); to += delta) {
+                        int target = board.pieceAt(to);
+                        if (target != EMPTY) {
+                            if ((target & opponentFlag) != 0) targets[n++] = to;
+                            break;
+                        }
+                    }
+                }
+            }
+            case PAWN -> n = addCaptures(board, PAWN_TARGETS[side][from], opponentFlag, targets, n);
+            default -> {
+            }
+        }
+        return n;
+    }
+
+    private static int addCaptures(Board board, int[] candidates, int opponentFlag, int[] targets, int n) {
+        for (int to : candidates) {
+            if ((board.pieceAt(to) & opponentFlag) != 0) {
+                targets[n++] = to;
+            }
+        }
+        return n;
+    }
+
+    // 把 from 上棋子的目标格依次写入 targets[n...]，返回新的结束位置
+    private static int collectTargets(Board board, int from, int[] targets, int n) {
+        int piece = board.pieceAt(from);
+        if (piece == EMPTY) return n;
+        int side = sideOf(piece);
+        int selfFlag = sideFlag(side);
+
+        switch (typeOf(piece)) {
+            case KING -> n = addTargets(board, KING_TARGETS[side][from], selfFlag, targets, n);
+            case ADVISOR -> n = addTargets(board, ADVISOR_TARGETS[side][from], selfFlag, targets, n);
+            case BISHOP -> {
+                for (int to : BISHOP_TARGETS[side][from]) {
+                    if (board.pieceAt((from + to) >> 1) == EMPTY && (board.pieceAt(to) & selfFlag) == 0) {
+                        targets[n++] = to;
+                    }
+                }
+            }
+            case KNIGHT -> {
+                int[] knightTargets = KNIGHT_TARGETS[from];
+                int[] legs = KNIGHT_LEGS[from];
+                for (int i = 0; i < knightTargets.length; i++) {
+                    int to = knightTargets[i];
+                    if (board.pieceAt(legs[i]) == EMPTY && (board.pieceAt(to) & selfFlag) == 0) {
+                        targets[n++] = to;
+                    }
+                }
+            }
+            case ROOK -> {
+                for (int delta : ORTHOGONAL) {
+                    for (int to = from + delta; inBoard(to); to += delta) {
+                        int target = board.pieceAt(to);
+                        if (target == EMPTY) {
+                            targets[n++] = to;
+                        } else {
+                            if ((target & selfFlag) == 0) targets[n++] = to;
+                            break;
+                        }
+                    }
+                }
+            }
+            case CANNON -> {
+                for (int delta : ORTHOGONAL) {
+                    int to = from + delta;
+                    // 不吃子时和车一样走
+                    while (inBoard(to) && board.pieceAt(to) == EMPTY) {
+                        targets[n++] = to;
+                        to += delta;
+                    }
+                    // 翻过炮架后吃遇到的第一个对方棋子
+                    for (to += delta; inBoard(to); to += delta) {
+                        int target = board.pieceAt(to);
+                        if (target != EMPTY) {
+                            if ((target & selfFlag) == 0) targets[n++] = to;
+                            break;
+                        }
+                    }
+                }
+            }
+            case PAWN -> n = addTargets(board, PAWN_TARGETS[side][from], selfFlag, targets, n);
+            default -> {
+            }
+        }
+        return n;
+    }
+
+    private static int addTargets(Board board, int[] candidates, int selfFlag, int[] targets, int n) {
+        for (int to : candidates) {
+            if ((board.pieceAt(to) & selfFlag) == 0) {
+                targets[n++] = to;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 检查一步伪合法走法是否合法：走完后己方不能被将军，也不能将帅对脸
+     * 走法在棋盘上原地执行后再恢复，调用方需要独占该棋盘
+     */
+    public static boolean isLegal(Board board, int from, int to) {
+        int side = sideOf(board.pieceAt(from));
+        board.doMove(from, to);
+        boolean illegal = isKingAttacked(board, side, true);
+        board.undoMove();
+        return !illegal;
+    }
+
+    /**
+     * 检查指定执子方的将/帅是否被对方棋子攻击（不含将帅对脸）
+     */
+    public static boolean isInCheck(Board board, int side) {
+        return isKingAttacked(board, side, false);
+    }
+
+    /**
+     * 双方将帅是否在同一列且中间没有棋子
+     */
+    public static boolean isKingsFacing(Board board) {
+        int redKing = board.kingSquare(RED);
+        int blackKing = board.kingSquare(BLACK);
+        if (redKing == 0 || blackKing == 0 || fileOf(redKing) != fileOf(blackKing)) return false;
+        for (int sq = blackKing + 16; sq != redKing; sq += 16) {
+            if (board.pieceAt(sq) != EMPTY) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 从将/帅所在格子向外反查攻击者，不扫描整个棋盘：
+     * 四个方向上遇到的第一个棋子是对方车（或纵向上的对方将帅，即对脸）时被攻击，
+     * 隔一个炮架遇到的第一个棋子是对方炮时被攻击；
+     * 八个可能的马位检查对应的马腿；兵只需要检查前方和左右相邻的格子。
+     * 对方的将、士、象走不出自己的半边棋盘，不可能攻击到九宫里的将/帅。
+     *
+     * @param includeFacing 是否把将帅对脸也算作被攻击
+     */
+    private static boolean isKingAttacked(Board board, int side, boolean includeFacing) {
+        int kingSq = board.kingSquare(side);
+        if (kingSq == 0) return false;
+        int enemy = opponent(side);
+        int enemyFlag = sideFlag(enemy);
+        int enemyRook = enemyFlag | ROOK;
+        int enemyCannon = enemyFlag | CANNON;
+
+        // 车、炮、将帅对脸
+        for (int delta : ORTHOGONAL) {
+            int sq = kingSq + delta;
+            while (inBoard(sq) && board.pieceAt(sq) == EMPTY) sq += delta;
+            if (!inBoard(sq)) continue;
+            int piece = board.pieceAt(sq);
+            if (piece == enemyRook) return true;
+            if (includeFacing && piece == (enemyFlag | KING) && (delta == 16 || delta == -16)) return true;
+
+            // 翻过炮架找炮
+            for (sq += delta; inBoard(sq); sq += delta) {
+                piece = board.pieceAt(sq);
+                if (piece != EMPTY) {
+                    if (piece == enemyCannon) return true;
+                    break;
+                }
+            }
+        }
+
+        // 马：马在 kingSq - KNIGHT_DELTAS[i] 时，马腿在马的位置 + KNIGHT_LEG_DELTAS[i]
+        int enemyKnight = enemyFlag | KNIGHT;
+        for (int i = 0; i < KNIGHT_DELTAS.length; i++) {
+            int knightSq = kingSq - KNIGHT_DELTAS[i];
+            if (board.pieceAt(knightSq) == enemyKnight && board.pieceAt(knightSq + KNIGHT_LEG_DELTAS[i]) == EMPTY) {
+                return true;
+            }
+        }
+
+        // 兵：从正前方走过来，或者过河后从左右两侧横走过来
+        int enemyPawn = enemyFlag | PAWN;
+        int enemyForward = enemy == RED ? -16 : 16;
+        if (board.pieceAt(kingSq - enemyForward) == enemyPawn) return true;
+        for (int sq = kingSq - 1; sq <= kingSq + 1; sq += 2) {
+            if (board.pieceAt(sq) == enemyPawn && !isOwnHalf(enemy, sq)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package UI.AI;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 堆外置换表，用于几百 MB 到几 GB 的大表
+ * 内存由 ByteBuffer.allocateDirect 分配，不占用 Java 堆，GC 也不需要扫描。
+ * 单个 ByteBuffer 最大 2GB，所以按 1GB 分块。
+ *
+ * 每个条目 16 字节：key ^ data 和 data 两个 long，读取时用异或校验，多个搜索线程可以无锁共享。
+ * 4 个条目组成一个 64 字节的桶（正好一条缓存行），同一个键只会落在一个桶里：
+ * 查找时比较桶内 4 个条目；保存时优先覆盖同一局面，其次是空条目，
+ * 否则替换桶内价值最低的条目（旧搜索留下的、深度浅的先被替换）。
+ */
+public class OffHeapTranspositionTable implements TranspositionTable {
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final ByteBuffer[] chunks;
+    private final long bucketMask;
+    private int age = 0;
+
+    /**
+     * @param sizeMb 置换表大小（MB），实际桶数取不超过该大小的 2 的幂
+     */
+    public OffHeapTranspositionTable(int sizeMb) {
+        long buckets = Long.highestOneBit(Math.max(1L, (long) sizeMb) * 1024 * 1024 / BUCKET_BYTES);
+        long bytes = buckets * BUCKET_BYTES;
+        int chunkCount = (int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT);
+        this.chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int chunkBytes = (int) Math.min(bytes - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+            chunks[i] = ByteBuffer.allocateDirect(chunkBytes).order(ByteOrder.nativeOrder());
+        }
+        this.bucketMask = buckets - 1;
+    }
+
+    @Override
+    public void newSearch() {
+        age = (age + 1) & 0xff;
+    }
+
+    @Override
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int pos = 0; pos < chunk.capacity(); pos += 8) {
+                chunk.putLong(pos, 0L);
+            }
+        }
+    }
+
+    @Override
+    public long probe(long key) {
+        long offset = (key & bucketMask) * BUCKET_BYTES;
+        ByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        int pos = (int) (offset & CHUNK_MASK);
+        for (int i = 0; i < BUCKET_ENTRIES; i++, pos += ENTRY_BYTES) {
+            long data = chunk.getLong(pos + 8);
+            if (data != 0 && (chunk.getLong(pos) ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void store(long key, int depth, int bound, int score, int move) {
+        long offset = (key & bucketMask) * BUCKET_BYTES;
+        ByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        int bucket = (int) (offset & CHUNK_MASK);
+
+        int target = -1;
+        int lowestValue = Integer.MAX_VALUE;
+        for (int i = 0, pos = bucket; i < BUCKET_ENTRIES; i++, pos += ENTRY_BYTES) {
+            long oldData = chunk.getLong(pos + 8);
+            if (oldData == 0) {
+                // 空条目，但同一局面可能在桶里更后面的位置，继续查找
+                if (lowestValue > Integer.MIN_VALUE) {
+                    target = pos;
+                    lowestValue = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            if ((chunk.getLong(pos) ^ oldData) == key) {
+                // 同一局面直接覆盖，浅层结果没有新走法时保留原来的最佳走法
+                if (move == Move.NONE) {
+                    move = TranspositionTable.entryMove(oldData);
+                }
+                target = pos;
+                break;
+            }
+            // 条目价值：旧搜索留下的条目减去 256，同代条目按深度比较
+            int value = TranspositionTable.entryDepth(oldData)
+                    - (TranspositionTable.entryAge(oldData) == age ? 0 : 256);
+            if (value < lowestValue) {
+                target = pos;
+                lowestValue = value;
+            }
+        }
+
+        long data = TranspositionTable.packEntry(depth, bound, score, move, age);
+        chunk.putLong(target, key ^ data);
+        chunk.putLong(target + 8, data);
+    }
+}
@@ -0,0 +1,130 @@
+package UI.AI;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * 开局库
+ * 文件由若干 16 字节的条目组成（大端序）：8 字节局面键（Zobrist）、4 字节走法（起点和终点）、4 字节权重，
+ * 按局面键排序（见 OpeningBookBuilder）。文件通过 FileChannel.map 映射到内存，打开时不需要解析，
+ * 查找时二分定位到同一局面的所有条目，再按权重随机选一步。
+ */
+public final class OpeningBook {
+
+    public static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int entryCount;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * 以只读方式映射开局库文件
+     *
+     * @param file 开局库文件
+     * @throws IOException 文件无法读取或长度不是条目大小的整数倍
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("开局库文件格式错误: " + file);
+            }
+            // 映射在通道关闭后仍然有效
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * 查找当前局面的开局库走法
+     * 只考虑当前局面下合法的走法，按权重随机选择。
+     *
+     * @param board 当前局面
+     * @param random 随机数来源
+     * @return 走法编码，局面不在开局库中时返回 Move.NONE
+     */
+    public int probe(Board board, Random random) {
+        long key = board.key();
+        int first = lowerBound(key);
+        int last = first;
+        while (last < entryCount && keyAt(last) == key) {
+            last++;
+        }
+        if (first == last) return Move.NONE;
+
+        int[] moves = new int[last - first];
+        int[] weights = new int[last - first];
+        int count = 0;
+        long totalWeight = 0;
+        for (int i = first; i < last; i++) {
+            int weight = weightAt(i);
+            if (weight <= 0) continue;
+            int fromTo = moveAt(i);
+            int from = fromTo & 0xff;
+            int to = fromTo >>> 8;
+            int piece = board.pieceAt(from);
+            if (piece == Board.EMPTY || Board.sideOf(piece) != board.sideToMove()
+                    || !isTarget(board, from, to) || !MoveGenerator.isLegal(board, from, to)) {
+                continue; // 键冲突或文件损坏
+            }
+            moves[count] = Move.create(from, to, piece, board.pieceAt(to));
+            weights[count++] = weight;
+            totalWeight += weight;
+        }
+        if (count == 0) return Move.NONE;
+
+        long pick = (long) (random.nextDouble() * totalWeight);
+        for (int i = 0; i < count; i++) {
+            pick -= weights[i];
+            if (pick < 0) return moves[i];
+        }
+        return moves[count - 1];
+    }
+
+    // 第一个键不小于 key 的条目
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isTarget(Board board, int from, int to) {
+        int[] targets = new int[MoveGenerator.MAX_TARGETS];
+        int count = MoveGenerator.generateTargets(board, from, targets);
+        for (int i = 0; i < count; i++) {
+            if (targets[i] == to) return true;
+        }
+        return false;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 8);
+    }
+
+    private int weightAt(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 12);
+    }
+}
@@ -0,0 +1,158 @@
+package UI.AI;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 开局库生成工具
+ * 从一个目录中的棋谱文件统计每个局面下各走法出现的次数，生成 OpeningBook 使用的二进制文件。
+ *
+ * 棋谱文件为文本文件（.txt），每行一局，走法用 ICCS 坐标记法（如 h2e2 h9g7 ...），以空白分隔；
+ * 行尾可以有结果 1-0、0-1、1/2-1/2 或 *，"1." 这样的回合编号会被忽略，# 开头的行是注释。
+ * 有结果时胜方的走法权重为 2，和棋为 1，负方的走法不计入；没有结果时每步权重为 1。
+ * 遇到非法走法时该局后面的走法全部忽略。
+ *
+ * 用法：java UI.AI.OpeningBookBuilder 棋谱目录 输出文件 [最大步数] [最小权重]
+ */
+public class OpeningBookBuilder {
+
+    public static final int DEFAULT_MAX_PLY = 20;
+
+    // 局面键 -> (走法起点终点 -> 权重)
+    private final Map<Long, Map<Integer, Integer>> positions = new HashMap<>();
+    private final int maxPly;
+    private int gameCount = 0;
+
+    public OpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * 读取目录（包括子目录）中的所有 .txt 棋谱文件
+     */
+    public void addDirectory(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".txt"))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            addFile(file);
+        }
+    }
+
+    public void addFile(Path file) throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            addGame(line);
+        }
+    }
+
+    /**
+     * 加入一局棋
+     *
+     * @param line 一行棋谱
+     * @return 计入开局库的走法数
+     */
+    public int addGame(String line) {
+        List<String> moves = new ArrayList<>();
+        int winner = -1; // -1 未知，2 和棋
+        for (String token : line.trim().split("\\s+")) {
+            switch (token) {
+                case "1-0" -> winner = Board.RED;
+                case "0-1" -> winner = Board.BLACK;
+                case "1/2-1/2" -> winner = 2;
+                case "*" -> winner = -1;
+                default -> {
+                    if (!token.endsWith(".")) moves.add(token);
+                }
+            }
+        }
+
+        gameCount++;
+        Board board = Board.fromFen(Board.START_FEN);
+        int added = 0;
+        for (int ply = 0; ply < moves.size() && ply < maxPly; ply++) {
+            int move = Move.fromIccs(board, moves.get(ply));
+            if (move == Move.NONE) {
+                System.out.println("第 " + gameCount + " 局第 " + (ply + 1) + " 步非法，忽略之后的走法: " + moves.get(ply));
+                break;
+            }
+            int weight = winner < 0 ? 1 : winner == 2 ? 1 : winner == board.sideToMove() ? 2 : 0;
+            if (weight > 0) {
+                positions.computeIfAbsent(board.key(), key -> new HashMap<>())
+                        .merge(Move.fromTo(move), weight, Integer::sum);
+                added++;
+            }
+            board.doMove(Move.from(move), Move.to(move));
+        }
+        return added;
+    }
+
+    /**
+     * 按局面键排序后写出开局库文件
+     *
+     * @param file 输出文件
+     * @param minWeight 权重低于该值的走法不写入
+     * @return 写入的条目数
+     */
+    public int write(Path file, int minWeight) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : positions.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                if (move.getValue() >= minWeight) {
+                    entries.add(new long[]{position.getKey(), move.getKey(), move.getValue()});
+                }
+            }
+        }
+        // 与 OpeningBook 的二分查找一致：按有符号 long 比较键，同一局面按权重从高到低
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) Math.min(entry[2], Integer.MAX_VALUE));
+            }
+        }
+        return entries.size();
+    }
+
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    public int getPositionCount() {
+        return positions.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("用法: java UI.AI.OpeningBookBuilder 棋谱目录 输出文件 [最大步数] [最小权重]");
+            return;
+        }
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        int minWeight = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        builder.addDirectory(Paths.get(args[0]));
+        int entries = builder.write(Paths.get(args[1]), minWeight);
+        System.out.println("开局库生成完成: " + builder.getGameCount() + " 局, " + builder.getPositionCount()
+                + " 个局面, " + entries + " 个条目");
+    }
+}
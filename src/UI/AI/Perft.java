@@ -0,0 +1,193 @@
+package UI.AI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 走法生成的 perft 工具
+ * 统计从给定局面出发走 N 步（只计合法走法）能到达的叶子节点数，与已知结果对比可以验证走法生成和将军检测，
+ * 同时输出每秒节点数作为走法生成的性能基准。根节点的走法分给 ForkJoinPool 中的线程并行统计。
+ *
+ * 用法：
+ * java UI.AI.Perft                              运行内置测试局面
+ * java UI.AI.Perft depth [fen] [-divide] [-threads N]
+ */
+public class Perft {
+
+    // 内置测试局面及各深度的节点数（测试局面也用于 Evaluator 和走法校验器的自检）
+    public static final String[] TEST_FENS = {
+            Board.START_FEN,
+            // 中局：双方子力交错，有炮架、马腿被堵和吃子
+            "r1ba1a3/4kn3/2n1b4/pNp1p1p1p/4c4/6P2/P1P2R2P/1CcC5/9/2BAKAB2 w - - 0 1",
+            // 残局：将帅不在同一列，炮、马在九宫附近
+            "1cbak4/9/n2a5/2p1p3p/5cp2/2n2N3/6PCP/3AB4/2C6/3A1K1N1 w - - 0 1",
+            // 将帅同列，中间的马被牵制不能离开
+            "4k4/9/9/9/4n4/9/9/9/9/4K4 b - - 0 1",
+            // 黑方被隔士的炮将军
+            "4k4/4a4/9/9/9/9/9/9/4C4/3AK4 b - - 0 1",
+    };
+    private static final long[][] TEST_COUNTS = {
+            {44, 1920, 79666, 3290240},
+            {38, 1128, 43929, 1339047},
+            {7, 281, 8620, 326201},
+            {3, 7, 66, 148, 1342},
+            {6, 61, 208, 3582, 10832},
+    };
+
+    // 单个线程的走法缓冲区
+    private static final class Buffers {
+        final int[][] moves;
+
+        Buffers(int depth) {
+            moves = new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES];
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * 单线程统计叶子节点数
+     */
+    public static long perft(Board board, int depth) {
+        return perft(board, depth, 0, new Buffers(depth));
+    }
+
+    private static long perft(Board board, int depth, int ply, Buffers buffers) {
+        if (depth == 0) return 1;
+        int[] moves = buffers.moves[ply];
+        int count = MoveGenerator.generateMoves(board, moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int from = Move.from(moves[i]);
+            int to = Move.to(moves[i]);
+            if (!MoveGenerator.isLegal(board, from, to)) continue;
+            if (depth == 1) {
+                // 最后一层只需要计数，不必执行走法
+                nodes++;
+                continue;
+            }
+            board.doMove(from, to);
+            nodes += perft(board, depth - 1, ply + 1, buffers);
+            board.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * 按根节点走法拆分，每个走法一个任务，在 pool 中并行统计
+     *
+     * @return 根节点每个合法走法及其子树的叶子节点数（与走法一一对应）
+     */
+    public static List<long[]> divide(Board board, int depth, ForkJoinPool pool) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+
+        List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        List<long[]> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!MoveGenerator.isLegal(board, Move.from(move), Move.to(move))) continue;
+
+            // 每个任务使用自己的棋盘副本和缓冲区
+            Board child = new Board(board);
+            child.doMove(Move.from(move), Move.to(move));
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected Long compute() {
+                    return perft(child, depth - 1);
+                }
+            });
+            results.add(new long[]{move, 0});
+        }
+
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for (int i = 0; i < tasks.size(); i++) {
+            results.get(i)[1] = tasks.get(i).join();
+        }
+        return results;
+    }
+
+    /**
+     * 并行统计叶子节点数
+     */
+    public static long perft(Board board, int depth, ForkJoinPool pool) {
+        if (depth <= 1) return perft(board, depth);
+        long nodes = 0;
+        for (long[] result : divide(board, depth, pool)) {
+            nodes += result[1];
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean showDivide = false;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-divide" -> showDivide = true;
+                case "-threads" -> threads = Integer.parseInt(args[++i]);
+                default -> rest.add(args[i]);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        if (rest.isEmpty()) {
+            runTests(pool);
+        } else {
+            int depth = Integer.parseInt(rest.get(0));
+            String fen = rest.size() > 1 ? String.join(" ", rest.subList(1, rest.size())) : Board.START_FEN;
+            Board board = Board.fromFen(fen);
+            if (showDivide) {
+                long start = System.nanoTime();
+                long total = 0;
+                for (long[] result : divide(board, depth, pool)) {
+                    System.out.println(Move.toIccs((int) result[0]) + ": " + result[1]);
+                    total += result[1];
+                }
+                report(depth, total, System.nanoTime() - start);
+            } else {
+                runOne(board, depth, pool);
+            }
+        }
+        pool.shutdown();
+    }
+
+    private static void runTests(ForkJoinPool pool) {
+        boolean passed = true;
+        for (int i = 0; i < TEST_FENS.length; i++) {
+            System.out.println(TEST_FENS[i]);
+            Board board = Board.fromFen(TEST_FENS[i]);
+            long[] expected = TEST_COUNTS[i];
+            for (int depth = 1; depth <= expected.length; depth++) {
+                long nodes = runOne(board, depth, pool);
+                if (nodes != expected[depth - 1]) {
+                    System.out.println("  错误: 期望 " + expected[depth - 1]);
+                    passed = false;
+                }
+            }
+        }
+        System.out.println(passed ? "perft 全部通过" : "perft 存在错误");
+    }
+
+    private static long runOne(Board board, int depth, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long nodes = perft(board, depth, pool);
+        report(depth, nodes, System.nanoTime() - start);
+        return nodes;
+    }
+
+    private static void report(int depth, long nodes, long elapsedNanos) {
+        long nps = elapsedNanos > 0 ? nodes * 1_000_000_000L / elapsedNanos : 0;
+        System.out.println("  深度 " + depth + ": " + nodes + " 节点, " + elapsedNanos / 1_000_000 + "ms, " + nps + " 节点/秒");
+    }
+}
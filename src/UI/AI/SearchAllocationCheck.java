@@ -0,0 +1,60 @@
+package UI.AI;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 搜索过程的内存分配检查
+ * 单线程按固定深度搜索测试局面，用 com.sun.management.ThreadMXBean.getThreadAllocatedBytes 统计每次搜索中
+ * 搜索线程分配的字节数。搜索在同一个棋盘上原地走子和撤销，走法数组按层预先分配，
+ * 因此分配量只有每次迭代的统计和主要变例等固定开销，不应随节点数增长。
+ * 每个深度先搜索一次预热，再按第二次搜索的结果检查：深度增加后新增的分配不能超过 MAX_GROWTH_BYTES。
+ *
+ * 用法：
+ * java UI.AI.SearchAllocationCheck [maxDepth]     maxDepth 默认 5
+ */
+public class SearchAllocationCheck {
+
+    // 允许的分配增长：每多一次迭代多一份 SearchStats 和主要变例，远小于 1 字节/节点
+    private static final long MAX_GROWTH_BYTES = 64 * 1024;
+
+    private SearchAllocationCheck() {
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("当前 JVM 不支持统计线程分配的内存");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        boolean passed = true;
+        for (String fen : Perft.TEST_FENS) {
+            System.out.println(fen);
+            Board board = Board.fromFen(fen);
+            long baseline = -1;
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                AILogic ai = new AILogic(AILogic.DEFAULT_HASH_SIZE_MB, 1);
+                SearchLimits limits = SearchLimits.ofDepth(depth);
+                ai.getBestMove(board, limits);
+
+                // 清空置换表后重新搜索，与预热时访问相同的节点
+                ai = new AILogic(AILogic.DEFAULT_HASH_SIZE_MB, 1);
+                long before = threads.getThreadAllocatedBytes(threadId);
+                ai.getBestMove(board, limits);
+                long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+                long nodes = ai.getLastSearchStats().nodes;
+                ai.shutdown();
+
+                if (baseline < 0) baseline = allocated;
+                boolean ok = allocated - baseline <= MAX_GROWTH_BYTES;
+                System.out.printf("  深度 %d: %d 节点, 分配 %d 字节, %.4f 字节/节点%s%n", depth, nodes, allocated,
+                        nodes > 0 ? (double) allocated / nodes : 0.0, ok ? "" : ", 错误: 分配随深度增长");
+                passed &= ok;
+            }
+        }
+        System.out.println(passed ? "搜索分配检查通过" : "搜索分配检查失败");
+    }
+}
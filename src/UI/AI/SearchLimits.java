@@ -0,0 +1,33 @@
+package UI.AI;
+
+/**
+ * 一次搜索的限制条件：最大深度、时间预算（毫秒）和节点数上限
+ * 时间和节点数为 0 表示不限制
+ */
+public class SearchLimits {
+
+    // 迭代加深的最大深度
+    public static final int MAX_DEPTH = 32;
+
+    public final int depth;
+    public final long timeMs;
+    public final long nodes;
+
+    public SearchLimits(int depth, long timeMs, long nodes) {
+        this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+        this.timeMs = timeMs;
+        this.nodes = nodes;
+    }
+
+    public static SearchLimits ofDepth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits ofTime(long timeMs) {
+        return new SearchLimits(MAX_DEPTH, timeMs, 0);
+    }
+
+    public static SearchLimits ofNodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, 0, nodes);
+    }
+}
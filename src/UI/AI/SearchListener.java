@@ -0,0 +1,28 @@
+package UI.AI;
+
+/**
+ * 搜索进度监听器
+ * 迭代加深每完成一次迭代，在搜索线程上回调一次，实现中不要做耗时的操作。
+ * AILogic 本身不打印任何内容，搜索结果和辅助线程的异常也通过这里交给调用方处理（例如打印日志）。
+ */
+public interface SearchListener {
+
+    /**
+     * @param stats 本次搜索到目前为止的统计（节点数、耗时等从搜索开始时算起，包括辅助线程）
+     */
+    void iterationCompleted(SearchStats stats);
+
+    /**
+     * 一次搜索结束（包括直接使用开局库、残局库的走法），在搜索线程上回调
+     *
+     * @param stats 本次搜索的最终统计
+     */
+    default void searchCompleted(SearchStats stats) {
+    }
+
+    /**
+     * Lazy SMP 辅助线程的搜索抛出了异常；主线程的结果不受影响
+     */
+    default void helperFailed(Throwable error) {
+    }
+}
@@ -0,0 +1,122 @@
+package UI.AI;
+
+/**
+ * 一次搜索（或其中一次迭代）的统计数据
+ * 节点数、置换表和截断次数是所有搜索线程之和，选择性深度取各线程的最大值。
+ * 开局库和残局库直接给出的走法没有搜索，depth 为 0，只有 pv 和 score 有意义。
+ */
+public class SearchStats {
+
+    // 走法来源
+    public enum Source {
+        SEARCH, OPENING_BOOK, TABLEBASE
+    }
+
+    public final Source source;
+    // 完成的迭代深度
+    public final int depth;
+    // 选择性深度：包括静态搜索在内到达的最大层数
+    public final int selDepth;
+    // 根节点分数（相对于走子方）
+    public final int score;
+    // 节点数（包括静态搜索节点）
+    public final long nodes;
+    // 静态搜索节点数
+    public final long qnodes;
+    public final long timeMs;
+    // 置换表查询次数和命中次数
+    public final long ttProbes;
+    public final long ttHits;
+    // Beta 截断次数，以及第一个走法就截断的次数
+    public final long betaCutoffs;
+    public final long firstMoveCutoffs;
+    // 每次迭代的耗时，iterationTimesMs[i] 为深度 i + 1 的迭代
+    public final long[] iterationTimesMs;
+    // 主要变例
+    public final int[] pv;
+    public final int threads;
+    // 是否是后台思考中的迭代
+    public final boolean pondering;
+
+    SearchStats(Source source, int depth, int selDepth, int score, long nodes, long qnodes, long timeMs,
+                long ttProbes, long ttHits, long betaCutoffs, long firstMoveCutoffs,
+                long[] iterationTimesMs, int[] pv, int threads, boolean pondering) {
+        this.source = source;
+        this.depth = depth;
+        this.selDepth = selDepth;
+        this.score = score;
+        this.nodes = nodes;
+        this.qnodes = qnodes;
+        this.timeMs = timeMs;
+        this.ttProbes = ttProbes;
+        this.ttHits = ttHits;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.iterationTimesMs = iterationTimesMs;
+        this.pv = pv;
+        this.threads = threads;
+        this.pondering = pondering;
+    }
+
+    // 开局库、残局库走法的统计
+    static SearchStats ofProbe(Source source, int move, int score, long timeMs) {
+        return new SearchStats(source, 0, 0, score, 0, 0, timeMs, 0, 0, 0, 0,
+                new long[0], new int[]{move}, 1, false);
+    }
+
+    /**
+     * 每秒节点数
+     */
+    public long nps() {
+        return timeMs > 0 ? nodes * 1000 / timeMs : nodes;
+    }
+
+    public double ttHitRate() {
+        return ttProbes == 0 ? 0 : (double) ttHits / ttProbes;
+    }
+
+    /**
+     * 发生 beta 截断时第一个走法就截断的比例（衡量走法排序质量）
+     */
+    public double firstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    /**
+     * 最佳走法，没有时返回 Move.NONE
+     */
+    public int bestMove() {
+        return pv.length > 0 ? pv[0] : Move.NONE;
+    }
+
+    /**
+     * 主要变例的 ICCS 表示，走法之间用空格分隔
+     */
+    public String pvString() {
+        StringBuilder text = new StringBuilder();
+        for (int move : pv) {
+            if (text.length() > 0) text.append(' ');
+            text.append(Move.toIccs(move));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        if (source == Source.OPENING_BOOK) {
+            return "开局库走法 " + pvString();
+        }
+        if (source == Source.TABLEBASE) {
+            return "残局库走法 " + pvString() + ", 分数 " + score;
+        }
+        StringBuilder iterations = new StringBuilder();
+        for (long time : iterationTimesMs) {
+            if (iterations.length() > 0) iterations.append('/');
+            iterations.append(time);
+        }
+        return String.format("深度 %d/%d, 分数 %d, 节点 %d (静态 %d), %d nps, 置换表命中 %.1f%%, 截断 %d (首着 %.1f%%), "
+                        + "线程 %d, 耗时 %dms [%s], 主要变例 %s",
+                depth, selDepth, score, nodes, qnodes, nps(), ttHitRate() * 100, betaCutoffs,
+                firstMoveCutoffRate() * 100, threads, timeMs, iterations, pvString());
+    }
+}
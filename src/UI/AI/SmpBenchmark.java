@@ -0,0 +1,77 @@
+package UI.AI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多线程搜索（Lazy SMP）的到达深度耗时基准
+ * 对每个测试局面，分别用 1、2、4……个线程（直到 maxThreads）搜索到固定深度，每次使用新的置换表，
+ * 输出到达每个深度的累计耗时和节点数，最后汇总各线程数下的总耗时及相对单线程的加速比。
+ * 开始前先用单线程完整跑一遍所有局面预热 JIT。
+ *
+ * 用法：
+ * java UI.AI.SmpBenchmark [depth] [maxThreads] [fen]     depth 默认 7，maxThreads 默认为 CPU 核心数
+ */
+public class SmpBenchmark {
+
+    // 每次测试使用的置换表大小（MB）
+    private static final int HASH_SIZE_MB = 64;
+
+    private SmpBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String[] fens = args.length > 2 ? new String[]{String.join(" ", List.of(args).subList(2, args.length))} : Perft.TEST_FENS;
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(Math.max(1, maxThreads));
+
+        for (String fen : fens) {
+            search(Board.fromFen(fen), depth, 1);
+        }
+
+        long[] totalTimes = new long[threadCounts.size()];
+        for (String fen : fens) {
+            System.out.println(fen);
+            Board board = Board.fromFen(fen);
+            for (int i = 0; i < threadCounts.size(); i++) {
+                int threads = threadCounts.get(i);
+                SearchStats stats = search(board, depth, threads);
+                totalTimes[i] += stats.timeMs;
+
+                StringBuilder line = new StringBuilder("  " + threads + " 线程:");
+                long elapsed = 0;
+                for (int d = 0; d < stats.iterationTimesMs.length; d++) {
+                    elapsed += stats.iterationTimesMs[d];
+                    line.append(" 深度").append(d + 1).append(' ').append(elapsed).append("ms");
+                }
+                line.append(", 共 ").append(stats.timeMs).append("ms, ").append(stats.nodes).append(" 节点");
+                if (stats.depth < depth) {
+                    line.append("（未搜索到深度 ").append(depth).append("，来源 ").append(stats.source).append("）");
+                }
+                System.out.println(line);
+            }
+        }
+
+        System.out.println("汇总（深度 " + depth + "）:");
+        for (int i = 0; i < threadCounts.size(); i++) {
+            System.out.printf("  %d 线程: %dms, 加速比 %.2f%n", threadCounts.get(i), totalTimes[i],
+                    totalTimes[i] > 0 ? (double) totalTimes[0] / totalTimes[i] : 0.0);
+        }
+    }
+
+    private static SearchStats search(Board board, int depth, int threads) {
+        AILogic ai = new AILogic(HASH_SIZE_MB, threads);
+        try {
+            ai.getBestMove(board, SearchLimits.ofDepth(depth));
+            return ai.getLastSearchStats();
+        } finally {
+            ai.shutdown();
+        }
+    }
+}
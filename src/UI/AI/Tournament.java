@@ -0,0 +1,426 @@
+package UI.AI;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static UI.AI.Board.*;
+
+/**
+ * 引擎自对弈比赛工具（无界面）
+ * 两个引擎在线程池中同时下多局棋（每个工作线程一次下一局），每个开局下两局并交换先后手，
+ * 每步使用固定的时间、节点数或深度。每局结束后把结果追加到日志文件，并输出 Elo 差和误差范围；
+ * 指定 SPRT 参数时，对数似然比越过边界后停止开始新的对局。
+ *
+ * 引擎可以是内置的 AILogic（builtin，可附加 :hash=16,book=文件,egtb=目录），
+ * 也可以是 UCCI 引擎的启动命令（例如 "java -cp old UI.AI.UcciEngine"），用于比较两个版本；
+ * 固定时间通过 UcciEngine 支持的 go movetime 传给外部引擎。
+ *
+ * 对局规则：无子可走时被将军为负、困毙判和（与界面一致）；同一局面第三次出现、
+ * 双方都没有可以过河进攻的棋子、或超过最大步数时判和。
+ *
+ * 用法：java UI.AI.Tournament -engine1 SPEC -engine2 SPEC [-games N] [-concurrency N]
+ *       [-movetime 毫秒 | -nodes N | -depth N] [-openings 文件] [-maxplies N]
+ *       [-sprt elo0 elo1 alpha beta] [-log 文件]
+ * 开局文件每行一个开局：FEN，或者从初始局面开始的 ICCS 走法序列；不指定时使用内置的常见开局。
+ */
+public class Tournament {
+
+    private static final String[] DEFAULT_OPENINGS = {
+            "",
+            "h2e2 h9g7",
+            "h2e2 b9c7",
+            "h2e2 h7e7",
+            "b2e2 b9c7",
+            "c3c4 g6g5",
+            "c3c4 b9c7",
+            "g3g4 c6c5",
+            "b0c2 h9g7",
+            "h0g2 b9c7",
+            "g0e2 h7e7",
+            "h2d2 b9c7",
+    };
+    private static final int DEFAULT_MAX_PLIES = 300;
+    private static final int REPETITION_LIMIT = 3;
+
+    private final String engine1;
+    private final String engine2;
+    private final List<Opening> openings;
+    private final SearchLimits limits;
+    private final int games;
+    private final int concurrency;
+    private final int maxPlies;
+    // SPRT 参数 {elo0, elo1, alpha, beta}，为 null 时下满 games 局
+    private final double[] sprt;
+    private final PrintWriter log;
+    private final PrintStream console;
+
+    private final TournamentStats stats = new TournamentStats();
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private volatile boolean finished = false;
+
+    public Tournament(String engine1, String engine2, List<Opening> openings, SearchLimits limits, int games,
+                      int concurrency, int maxPlies, double[] sprt, PrintWriter log, PrintStream console) {
+        this.engine1 = engine1;
+        this.engine2 = engine2;
+        this.openings = openings;
+        this.limits = limits;
+        this.games = games;
+        this.concurrency = concurrency;
+        this.maxPlies = maxPlies;
+        this.sprt = sprt;
+        this.log = log;
+        this.console = console;
+    }
+
+    /**
+     * 开局：起始局面和已经走过的走法
+     */
+    public static final class Opening {
+        final String fen;
+        final List<String> moves;
+
+        Opening(String fen, List<String> moves) {
+            this.fen = fen;
+            this.moves = moves;
+        }
+
+        /**
+         * 解析开局文件中的一行
+         *
+         * @throws IllegalArgumentException FEN 格式错误或走法不合法
+         */
+        static Opening parse(String line) {
+            line = line.trim();
+            if (line.contains("/")) {
+                Board.fromFen(line);
+                return new Opening(line, List.of());
+            }
+            List<String> moves = line.isEmpty() ? List.of() : Arrays.asList(line.split("\\s+"));
+            Board board = Board.fromFen(START_FEN);
+            for (String iccs : moves) {
+                int move = Move.fromIccs(board, iccs);
+                if (move == Move.NONE) {
+                    throw new IllegalArgumentException("开局走法不合法: " + line);
+                }
+                board.doMove(Move.from(move), Move.to(move));
+            }
+            return new Opening(START_FEN, moves);
+        }
+    }
+
+    /**
+     * 比赛中的一方
+     */
+    interface Player extends AutoCloseable {
+
+        /**
+         * @param startFen 起始局面
+         * @param moves 从起始局面开始的全部走法（ICCS）
+         * @param board 当前局面（可以修改，调用之后不再使用）
+         * @return 走法（ICCS），认输或没有走法时返回 null
+         */
+        String bestMove(String startFen, List<String> moves, Board board, SearchLimits limits) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    // 同一进程中的 AILogic，单线程搜索，并行度来自同时进行的多局棋
+    static final class BuiltinPlayer implements Player {
+        private final AILogic ai;
+
+        BuiltinPlayer(String options) throws IOException {
+            int hashMb = AILogic.DEFAULT_HASH_SIZE_MB;
+            OpeningBook book = null;
+            EndgameTablebase tablebase = null;
+            for (String option : options.isEmpty() ? new String[0] : options.split(",")) {
+                String[] pair = option.split("=", 2);
+                String value = pair.length > 1 ? pair[1] : "";
+                switch (pair[0]) {
+                    case "hash" -> hashMb = Integer.parseInt(value);
+                    case "book" -> book = OpeningBook.open(Paths.get(value));
+                    case "egtb" -> tablebase = EndgameTablebase.load(Paths.get(value));
+                    default -> throw new IllegalArgumentException("未知的引擎选项: " + option);
+                }
+            }
+            ai = new AILogic(hashMb, 1);
+            ai.setOpeningBook(book);
+            ai.setTablebase(tablebase);
+        }
+
+        @Override
+        public String bestMove(String startFen, List<String> moves, Board board, SearchLimits limits) {
+            int move = ai.getBestMove(board, limits);
+            return move == Move.NONE ? null : Move.toIccs(move);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // 外部 UCCI 引擎进程
+    static final class UcciPlayer implements Player {
+        private final Process process;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        UcciPlayer(String command) throws IOException {
+            process = new ProcessBuilder(command.trim().split("\\s+"))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8), true);
+            out.println("ucci");
+            readUntil("ucciok");
+        }
+
+        @Override
+        public String bestMove(String startFen, List<String> moves, Board board, SearchLimits limits) throws IOException {
+            out.println("position fen " + startFen + (moves.isEmpty() ? "" : " moves " + String.join(" ", moves)));
+            StringBuilder go = new StringBuilder("go");
+            if (limits.timeMs > 0) go.append(" movetime ").append(limits.timeMs);
+            if (limits.nodes > 0) go.append(" nodes ").append(limits.nodes);
+            if (limits.depth < SearchLimits.MAX_DEPTH) go.append(" depth ").append(limits.depth);
+            out.println(go);
+            String line = readUntil("bestmove", "nobestmove");
+            String[] tokens = line.split("\\s+");
+            return "bestmove".equals(tokens[0]) && tokens.length > 1 ? tokens[1] : null;
+        }
+
+        // 读到以指定单词开头的行为止
+        private String readUntil(String... words) throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String first = line.trim().split("\\s+")[0];
+                for (String word : words) {
+                    if (word.equals(first)) return line.trim();
+                }
+            }
+            throw new IOException("UCCI 引擎已退出");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.println("quit");
+            try {
+                if (!process.waitFor(2, TimeUnit.SECONDS)) process.destroy();
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static Player createPlayer(String spec) throws IOException {
+        if (spec.equals("builtin") || spec.startsWith("builtin:")) {
+            return new BuiltinPlayer(spec.length() > 8 ? spec.substring(8) : "");
+        }
+        return new UcciPlayer(spec);
+    }
+
+    /**
+     * 进行比赛，所有对局结束（或 SPRT 得出结论）后返回
+     */
+    public TournamentStats run() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            pool.submit(this::work);
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        console.println("比赛结束: " + stats + sprtStatus());
+        return stats;
+    }
+
+    // 工作线程：使用自己的一对引擎，依次领取对局编号直到下完
+    private void work() {
+        try (Player first = createPlayer(engine1); Player second = createPlayer(engine2)) {
+            int game;
+            while (!finished && (game = nextGame.getAndIncrement()) < games) {
+                Opening opening = openings.get((game / 2) % openings.size());
+                // 同一开局的两局交换先后手
+                boolean firstIsRed = (game & 1) == 0;
+                GameResult result = play(opening, firstIsRed ? first : second, firstIsRed ? second : first);
+                record(game, opening, firstIsRed, result);
+            }
+        } catch (Exception e) {
+            console.println("对局线程异常: " + e);
+            finished = true;
+        }
+    }
+
+    // 一局棋的结果：红方得分（1、0.5、0）、结束原因和全部走法
+    private static final class GameResult {
+        final double redScore;
+        final String reason;
+        final List<String> moves;
+
+        GameResult(double redScore, String reason, List<String> moves) {
+            this.redScore = redScore;
+            this.reason = reason;
+            this.moves = moves;
+        }
+    }
+
+    private GameResult play(Opening opening, Player red, Player black) throws IOException {
+        Board board = Board.fromFen(opening.fen);
+        List<String> moves = new ArrayList<>();
+        for (String iccs : opening.moves) {
+            int move = Move.fromIccs(board, iccs);
+            board.doMove(Move.from(move), Move.to(move));
+            moves.add(iccs);
+        }
+        board = new Board(board);
+        Map<Long, Integer> repetitions = new HashMap<>();
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+
+        for (int ply = 0; ply < maxPlies; ply++) {
+            int side = board.sideToMove();
+            double sideLoses = side == RED ? 0 : 1;
+            if (!hasLegalMove(board, buffer)) {
+                return MoveGenerator.isInCheck(board, side)
+                        ? new GameResult(sideLoses, "将死", moves)
+                        : new GameResult(0.5, "困毙", moves);
+            }
+            if (repetitions.merge(board.key(), 1, Integer::sum) >= REPETITION_LIMIT) {
+                return new GameResult(0.5, "重复局面", moves);
+            }
+            if (!hasAttackers(board)) {
+                return new GameResult(0.5, "双方无进攻子力", moves);
+            }
+
+            Player player = side == RED ? red : black;
+            String iccs = player.bestMove(opening.fen, moves, new Board(board), limits);
+            int move = iccs == null ? Move.NONE : Move.fromIccs(board, iccs);
+            if (move == Move.NONE) {
+                return new GameResult(sideLoses, "非法走法 " + iccs, moves);
+            }
+            board.doMove(Move.from(move), Move.to(move));
+            // 复制一份以清空走子记录栈
+            board = new Board(board);
+            moves.add(iccs);
+        }
+        return new GameResult(0.5, "超过最大步数", moves);
+    }
+
+    private static boolean hasLegalMove(Board board, int[] buffer) {
+        int count = MoveGenerator.generateMoves(board, buffer);
+        for (int i = 0; i < count; i++) {
+            if (MoveGenerator.isLegal(board, Move.from(buffer[i]), Move.to(buffer[i]))) return true;
+        }
+        return false;
+    }
+
+    // 车、马、炮、兵可以过河进攻；双方都没有时不可能将死对方
+    private static boolean hasAttackers(Board board) {
+        for (int sq : SQUARES) {
+            int type = typeOf(board.pieceAt(sq));
+            if (type == ROOK || type == KNIGHT || type == CANNON || type == PAWN) return true;
+        }
+        return false;
+    }
+
+    // 记录一局的结果：追加到日志，并更新统计和 SPRT
+    private synchronized void record(int game, Opening opening, boolean firstIsRed, GameResult result) {
+        double firstScore = firstIsRed ? result.redScore : 1 - result.redScore;
+        stats.add(firstScore);
+        if (log != null) {
+            // 对局编号 开局编号 引擎1执红? 引擎1得分 步数 原因 走法
+            log.println(game + " " + (game / 2) % openings.size() + " " + (firstIsRed ? "R" : "B") + " "
+                    + (firstScore == 0.5 ? "1/2" : firstScore > 0.5 ? "1" : "0") + " "
+                    + result.moves.size() + " " + result.reason.replace(' ', '_') + " "
+                    + String.join(" ", result.moves));
+            log.flush();
+        }
+        console.println("第 " + (game + 1) + " 局 (" + result.reason + "): " + stats + sprtStatus());
+
+        if (sprt != null && !finished) {
+            double llr = stats.llr(sprt[0], sprt[1]);
+            double[] bounds = TournamentStats.llrBounds(sprt[2], sprt[3]);
+            if (llr <= bounds[0] || llr >= bounds[1]) {
+                finished = true;
+                console.println("SPRT 结论: " + (llr >= bounds[1] ? "接受 H1（引擎 1 更强）" : "接受 H0"));
+            }
+        }
+    }
+
+    private String sprtStatus() {
+        if (sprt == null) return "";
+        double[] bounds = TournamentStats.llrBounds(sprt[2], sprt[3]);
+        return String.format(", LLR %.2f [%.2f, %.2f]", stats.llr(sprt[0], sprt[1]), bounds[0], bounds[1]);
+    }
+
+    static List<Opening> loadOpenings(Path file) throws IOException {
+        List<Opening> openings = new ArrayList<>();
+        List<String> lines = file == null ? Arrays.asList(DEFAULT_OPENINGS) : Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (line.trim().startsWith("#") || (file != null && line.isBlank())) continue;
+            openings.add(Opening.parse(line));
+        }
+        return openings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String engine1 = "builtin";
+        String engine2 = "builtin";
+        int games = 100;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        SearchLimits limits = SearchLimits.ofTime(100);
+        Path openingFile = null;
+        int maxPlies = DEFAULT_MAX_PLIES;
+        double[] sprt = null;
+        Path logFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-engine1" -> engine1 = args[++i];
+                case "-engine2" -> engine2 = args[++i];
+                case "-games" -> games = Integer.parseInt(args[++i]);
+                case "-concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "-movetime" -> limits = SearchLimits.ofTime(Long.parseLong(args[++i]));
+                case "-nodes" -> limits = SearchLimits.ofNodes(Long.parseLong(args[++i]));
+                case "-depth" -> limits = SearchLimits.ofDepth(Integer.parseInt(args[++i]));
+                case "-openings" -> openingFile = Paths.get(args[++i]);
+                case "-maxplies" -> maxPlies = Integer.parseInt(args[++i]);
+                case "-sprt" -> sprt = new double[]{Double.parseDouble(args[++i]), Double.parseDouble(args[++i]),
+                        Double.parseDouble(args[++i]), Double.parseDouble(args[++i])};
+                case "-log" -> logFile = Paths.get(args[++i]);
+                default -> {
+                    System.out.println("未知参数: " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        PrintStream console = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+
+        PrintWriter log = logFile == null ? null : new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                StandardCharsets.UTF_8)));
+        try {
+            new Tournament(engine1, engine2, loadOpenings(openingFile), limits, games, Math.max(1, concurrency),
+                    maxPlies, sprt, log, console).run();
+        } finally {
+            if (log != null) log.close();
+        }
+    }
+}
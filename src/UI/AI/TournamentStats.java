@@ -0,0 +1,119 @@
+package UI.AI;
+
+/**
+ * 对局统计：胜负和、Elo 差及其误差范围、SPRT 对数似然比
+ * 所有结果都从引擎 1 的角度统计。
+ *
+ * Elo 差由得分率换算：elo = -400 * log10(1 / 得分率 - 1)，误差范围按每局得分的方差取 95% 置信区间。
+ * SPRT 检验假设 H0: elo = elo0 与 H1: elo = elo1，对数似然比用正态近似计算，
+ * 超过上界接受 H1（引擎 1 更强），低于下界接受 H0。
+ */
+public class TournamentStats {
+
+    // 95% 置信区间对应的标准正态分位数
+    private static final double Z_95 = 1.959964;
+
+    private int wins;
+    private int losses;
+    private int draws;
+
+    public synchronized void add(double score) {
+        if (score > 0.5) {
+            wins++;
+        } else if (score < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    public synchronized int games() {
+        return wins + losses + draws;
+    }
+
+    public synchronized int wins() {
+        return wins;
+    }
+
+    public synchronized int losses() {
+        return losses;
+    }
+
+    public synchronized int draws() {
+        return draws;
+    }
+
+    /**
+     * 得分率
+     */
+    public synchronized double score() {
+        int games = games();
+        return games == 0 ? 0.5 : (wins + draws * 0.5) / games;
+    }
+
+    /**
+     * Elo 差（引擎 1 减去引擎 2）
+     */
+    public synchronized double elo() {
+        return eloOf(score());
+    }
+
+    /**
+     * 95% 置信区间的半宽（Elo）
+     */
+    public synchronized double eloError() {
+        int games = games();
+        if (games == 0) return Double.POSITIVE_INFINITY;
+        double deviation = Math.sqrt(variance() / games);
+        return (eloOf(score() + Z_95 * deviation) - eloOf(score() - Z_95 * deviation)) / 2;
+    }
+
+    /**
+     * SPRT 对数似然比
+     *
+     * @param elo0 H0 假设的 Elo 差
+     * @param elo1 H1 假设的 Elo 差
+     */
+    public synchronized double llr(double elo0, double elo1) {
+        int games = games();
+        double variance = variance();
+        if (games == 0 || variance == 0) return 0;
+        double s0 = scoreOf(elo0);
+        double s1 = scoreOf(elo1);
+        return games * (s1 - s0) * (2 * score() - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * SPRT 的下界和上界
+     *
+     * @param alpha 第一类错误概率
+     * @param beta 第二类错误概率
+     * @return {下界, 上界}
+     */
+    public static double[] llrBounds(double alpha, double beta) {
+        return new double[]{Math.log(beta / (1 - alpha)), Math.log((1 - beta) / alpha)};
+    }
+
+    // 每局得分的方差
+    private double variance() {
+        int games = games();
+        if (games == 0) return 0;
+        double score = score();
+        return (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2) + losses * Math.pow(score, 2)) / games;
+    }
+
+    private static double eloOf(double score) {
+        double clamped = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    private static double scoreOf(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d 局: +%d -%d =%d, 得分率 %.1f%%, Elo %+.1f ± %.1f",
+                games(), wins, losses, draws, score() * 100, elo(), eloError());
+    }
+}
@@ -0,0 +1,87 @@
+package UI.AI;
+
+/**
+ * 置换表接口
+ * 以 Zobrist 键为索引，记录已经搜索过的局面的深度、边界类型、分数和最佳走法。
+ * 条目数据打包在一个 long 里（见 packEntry），所有实现都必须支持多个搜索线程无锁共享：
+ * 读到被并发写坏的条目时只能当作未命中，不能返回错误的数据。
+ */
+public interface TranspositionTable {
+
+    // 边界类型
+    int BOUND_UPPER = 1; // 分数 <= 记录值（未超过 alpha）
+    int BOUND_LOWER = 2; // 分数 >= 记录值（发生 beta 截断）
+    int BOUND_EXACT = 3;
+
+    // 不超过该大小（MB）时使用堆内数组，更大的表放到堆外内存
+    int HEAP_LIMIT_MB = 64;
+
+    /**
+     * 按大小选择实现：小表使用 long 数组，大表使用堆外内存，避免占用 Java 堆和增加 GC 扫描开销
+     *
+     * @param sizeMb 置换表大小（MB）
+     */
+    static TranspositionTable create(int sizeMb) {
+        if (sizeMb <= HEAP_LIMIT_MB) {
+            return new HeapTranspositionTable(sizeMb);
+        }
+        return new OffHeapTranspositionTable(sizeMb);
+    }
+
+    /**
+     * 新的一次搜索开始，旧搜索留下的条目优先被替换
+     */
+    void newSearch();
+
+    void clear();
+
+    /**
+     * 查找局面
+     *
+     * @param key 局面键
+     * @return 条目数据，未命中时返回 0
+     */
+    long probe(long key);
+
+    /**
+     * 保存搜索结果
+     *
+     * @param key 局面键
+     * @param depth 搜索深度
+     * @param bound 边界类型
+     * @param score 分数（已按层数调整过的杀棋分数）
+     * @param move 最佳走法（只保存起点和终点）
+     */
+    void store(long key, int depth, int bound, int score, int move);
+
+    // ===== 条目编码 =====
+    // 位布局：0-15 走法起点终点，16-31 分数，32-39 深度，40-41 边界类型，42-49 搜索代数
+
+    static long packEntry(int depth, int bound, int score, int move, int age) {
+        return (Move.fromTo(move) & 0xffffL)
+                | ((score & 0xffffL) << 16)
+                | ((long) (depth & 0xff) << 32)
+                | ((long) bound << 40)
+                | ((long) (age & 0xff) << 42);
+    }
+
+    static int entryMove(long data) {
+        return (int) (data & 0xffff);
+    }
+
+    static int entryScore(long data) {
+        return (short) (data >>> 16);
+    }
+
+    static int entryDepth(long data) {
+        return (int) ((data >>> 32) & 0xff);
+    }
+
+    static int entryBound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    static int entryAge(long data) {
+        return (int) ((data >>> 42) & 0xff);
+    }
+}
@@ -0,0 +1,322 @@
+package UI.AI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * UCCI 协议引擎入口（无界面）
+ * 通过标准输入输出与界面程序、对局工具通信，不加载 JavaFX、字体和音乐。
+ * 协议输出只写到标准输出，AILogic 等打印的日志被转到标准错误。
+ *
+ * 支持的命令：
+ * ucci、isready、setoption（Hash/hashsize、Threads/threads、bookfiles、egtbpaths）、
+ * position {fen FEN | startpos} [moves ...]、
+ * go [ponder | infinite] [depth N] [nodes N] [time 剩余毫秒 [movestogo N] [increment 毫秒]] [movetime 毫秒]、
+ * ponderhit、stop、quit。
+ *
+ * 用法：java UI.AI.UcciEngine（或 java MainApplication -ucci）
+ */
+public class UcciEngine {
+
+    private static final String NAME = "SUSTech XiangQi";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 64;
+    // 只给出剩余时间时，按还要走这么多步分配每步的时间
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // 给通信和界面留出的时间
+    private static final int TIME_MARGIN_MS = 50;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private AILogic ai;
+    private int hashSizeMb = AILogic.DEFAULT_HASH_SIZE_MB;
+    private int threads = AILogic.DEFAULT_THREADS;
+    private OpeningBook openingBook;
+    private EndgameTablebase tablebase;
+    private Board board = Board.fromFen(Board.START_FEN);
+
+    // 搜索在单独的线程上进行，主线程继续读取 stop、ponderhit 等命令
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "UCCI-Search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> searchTask;
+    // go infinite / go ponder 时，搜索提前结束也要等到 stop 或 ponderhit 才输出 bestmove
+    private volatile CountDownLatch waitForStop;
+
+    public UcciEngine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream protocolOut = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new UcciEngine(reader, protocolOut).run();
+    }
+
+    /**
+     * 读取并执行命令，直到 quit 或输入结束
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            String[] tokens = line.split("\\s+");
+            switch (tokens[0]) {
+                case "ucci" -> handleUcci();
+                case "isready" -> send("readyok");
+                case "setoption" -> handleSetOption(tokens);
+                case "position" -> handlePosition(tokens);
+                case "go" -> handleGo(tokens);
+                case "ponderhit" -> handlePonderHit();
+                case "stop" -> stopSearch();
+                case "quit" -> {
+                    stopSearch();
+                    releaseEngine();
+                    send("bye");
+                    return;
+                }
+                default -> send("info string unknown command " + tokens[0]);
+            }
+        }
+        stopSearch();
+        releaseEngine();
+    }
+
+    private void handleUcci() {
+        send("id name " + NAME);
+        send("id author SUSTech");
+        send("option hashsize type spin min 1 max " + MAX_HASH_MB + " default " + AILogic.DEFAULT_HASH_SIZE_MB);
+        send("option threads type spin min 1 max " + MAX_THREADS + " default " + AILogic.DEFAULT_THREADS);
+        send("option bookfiles type string default <empty>");
+        send("option egtbpaths type string default <empty>");
+        send("ucciok");
+    }
+
+    // 同时接受 UCCI 的 "setoption 名称 值" 和 UCI 的 "setoption name 名称 value 值"
+    private void handleSetOption(String[] tokens) {
+        String name;
+        String value;
+        int valueIndex = Arrays.asList(tokens).indexOf("value");
+        if (tokens.length > 2 && "name".equals(tokens[1]) && valueIndex > 2) {
+            name = String.join(" ", Arrays.copyOfRange(tokens, 2, valueIndex));
+            value = String.join(" ", Arrays.copyOfRange(tokens, valueIndex + 1, tokens.length));
+        } else if (tokens.length > 2) {
+            name = tokens[1];
+            value = String.join(" ", Arrays.copyOfRange(tokens, 2, tokens.length));
+        } else {
+            send("info string setoption needs a name and a value");
+            return;
+        }
+
+        stopSearch();
+        try {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "hash", "hashsize" -> {
+                    hashSizeMb = clamp(Integer.parseInt(value), 1, MAX_HASH_MB);
+                    releaseEngine(); // 置换表大小在创建时确定，下次搜索时重新创建
+                }
+                case "threads" -> {
+                    threads = clamp(Integer.parseInt(value), 1, MAX_THREADS);
+                    if (ai != null) ai.setThreadCount(threads);
+                }
+                case "bookfiles" -> {
+                    openingBook = value.isEmpty() || "<empty>".equals(value) ? null : OpeningBook.open(Paths.get(value));
+                    if (ai != null) ai.setOpeningBook(openingBook);
+                }
+                case "egtbpaths" -> {
+                    tablebase = value.isEmpty() || "<empty>".equals(value) ? null : EndgameTablebase.load(Paths.get(value));
+                    if (ai != null) ai.setTablebase(tablebase);
+                }
+                default -> send("info string unknown option " + name);
+            }
+        } catch (NumberFormatException | IOException e) {
+            send("info string invalid value for " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void handlePosition(String[] tokens) {
+        stopSearch();
+        int movesIndex = Arrays.asList(tokens).indexOf("moves");
+        int fenEnd = movesIndex < 0 ? tokens.length : movesIndex;
+        Board position;
+        try {
+            if (tokens.length > 1 && "startpos".equals(tokens[1])) {
+                position = Board.fromFen(Board.START_FEN);
+            } else if (tokens.length > 2 && "fen".equals(tokens[1])) {
+                position = Board.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, fenEnd)));
+            } else {
+                send("info string position needs fen or startpos");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string invalid fen: " + e.getMessage());
+            return;
+        }
+
+        if (movesIndex >= 0) {
+            for (int i = movesIndex + 1; i < tokens.length; i++) {
+                int move = Move.fromIccs(position, tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string illegal move " + tokens[i]);
+                    break;
+                }
+                position.doMove(Move.from(move), Move.to(move));
+                // 复制一份以清空走子记录栈，很长的对局也不会超出容量
+                position = new Board(position);
+            }
+        }
+        board = position;
+    }
+
+    private void handleGo(String[] tokens) {
+        stopSearch();
+        boolean ponder = false;
+        boolean infinite = false;
+        int depth = SearchLimits.MAX_DEPTH;
+        long nodes = 0;
+        long remainingMs = 0;
+        long incrementMs = 0;
+        long moveTimeMs = 0;
+        int movesToGo = 0;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "ponder" -> ponder = true;
+                    case "infinite" -> infinite = true;
+                    case "depth" -> depth = Integer.parseInt(tokens[++i]);
+                    case "nodes" -> nodes = Long.parseLong(tokens[++i]);
+                    case "time" -> remainingMs = Long.parseLong(tokens[++i]);
+                    case "increment" -> incrementMs = Long.parseLong(tokens[++i]);
+                    case "movestogo" -> movesToGo = Integer.parseInt(tokens[++i]);
+                    case "movetime" -> moveTimeMs = Long.parseLong(tokens[++i]);
+                    default -> {
+                        // opptime 等不使用的参数
+                    }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string invalid go command");
+            return;
+        }
+
+        long timeMs = moveTimeMs;
+        if (timeMs == 0 && remainingMs > 0) {
+            long share = remainingMs / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + incrementMs;
+            // 剩余时间很少时留出一半而不是固定的余量
+            long usable = remainingMs > 2 * TIME_MARGIN_MS ? remainingMs - TIME_MARGIN_MS : remainingMs / 2;
+            timeMs = Math.max(1, Math.min(share, usable));
+        }
+        SearchLimits limits = new SearchLimits(depth, infinite ? 0 : timeMs, nodes);
+
+        AILogic engine = engine();
+        // 之前的搜索都已结束，此前的 stop 不能取消这次搜索
+        engine.clearStop();
+        Board position = new Board(board);
+        boolean pondering = ponder;
+        waitForStop = infinite || ponder ? new CountDownLatch(1) : null;
+        searchTask = searchExecutor.submit(() -> search(engine, position, limits, pondering));
+    }
+
+    private void search(AILogic engine, Board position, SearchLimits limits, boolean ponder) {
+        int best = ponder ? engine.ponder(position, limits) : engine.getBestMove(position, limits);
+        CountDownLatch latch = waitForStop;
+        if (latch != null) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (best == Move.NONE) {
+            send("nobestmove");
+            return;
+        }
+        // 主要变例的第二步作为后台思考的预测走法
+        int[] pv = engine.principalVariation(position, best);
+        send("bestmove " + Move.toIccs(best) + (pv.length > 1 ? " ponder " + Move.toIccs(pv[1]) : ""));
+    }
+
+    private void handlePonderHit() {
+        CountDownLatch latch = waitForStop;
+        waitForStop = null;
+        if (ai != null) ai.ponderHit();
+        if (latch != null) latch.countDown();
+    }
+
+    // 停止搜索，搜索线程随后输出 bestmove
+    // 界面程序应当在新的 position/go/setoption 之前先发送 stop，这里也会先停止，防止两次搜索重叠
+    private void stopSearch() {
+        if (searchTask == null) return;
+        if (ai != null) ai.stop();
+        CountDownLatch latch = waitForStop;
+        if (latch != null) latch.countDown();
+        waitForSearch();
+    }
+
+    // 等待搜索线程输出 bestmove
+    private void waitForSearch() {
+        if (searchTask == null) return;
+        try {
+            searchTask.get();
+        } catch (Exception e) {
+            send("info string search failed: " + e);
+        }
+        searchTask = null;
+        waitForStop = null;
+    }
+
+    // 释放当前的搜索实例（包括辅助线程）
+    private void releaseEngine() {
+        if (ai != null) {
+            ai.shutdown();
+            ai = null;
+        }
+    }
+
+    private AILogic engine() {
+        if (ai == null) {
+            ai = new AILogic(hashSizeMb, threads);
+            ai.setOpeningBook(openingBook);
+            ai.setTablebase(tablebase);
+            ai.setSearchListener(this::sendInfo);
+        }
+        return ai;
+    }
+
+    private void sendInfo(SearchStats stats) {
+        StringBuilder line = new StringBuilder("info depth ").append(stats.depth)
+                .append(" seldepth ").append(stats.selDepth)
+                .append(" score ").append(stats.score)
+                .append(" time ").append(stats.timeMs)
+                .append(" nodes ").append(stats.nodes)
+                .append(" nps ").append(stats.nps());
+        if (stats.pv.length > 0) {
+            line.append(" pv ").append(stats.pvString());
+        }
+        send(line.toString());
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,27 @@
+package UI.AI;
+
+import java.util.Random;
+
+/**
+ * Zobrist 哈希键
+ * 每个(棋子编码, 格子)对应一个 64 位随机数，局面的键为所有棋子对应随机数的异或，
+ * 黑方走棋时再异或 SIDE_KEY。使用固定种子，保证不同运行之间键值一致（开局库等文件依赖这一点）。
+ */
+public final class Zobrist {
+
+    static final long[][] PIECE_KEYS = new long[24][256];
+    static final long SIDE_KEY;
+
+    static {
+        Random random = new Random(0x5A0B7157L);
+        for (int piece = 0; piece < 24; piece++) {
+            for (int sq = 0; sq < 256; sq++) {
+                PIECE_KEYS[piece][sq] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,103 @@
+package UI.MainGameUI;
+
+import UI.AI.Board;
+import UI.AI.MoveGenerator;
+import UI.AI.Perft;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将军检测的对照测试和基准测试
+ * 在 Perft 测试局面的走法树（深度 depth 以内的每个节点）上，对红黑双方分别比较：
+ * 从将/帅向外反查攻击者的 MoveGenerator.isInCheck、MoveRuleValidator.isKingInCheck，
+ * 以及旧校验器逐个让对方棋子尝试走到将/帅位置的 LegacyMoveRuleValidator.isKingInCheck，
+ * 输出不一致的局面，并输出反查和逐子扫描两种方式每秒的检测次数。
+ *
+ * 用法：
+ * java UI.MainGameUI.CheckDetectionBenchmark [depth] [rounds]     depth 默认 2，rounds 默认 5
+ */
+public class CheckDetectionBenchmark {
+
+    private static final String[] COLORS = {"RED", "BLACK"};
+
+    private CheckDetectionBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        boolean passed = true;
+        List<Board> allBoards = new ArrayList<>();
+        List<ChessPiece[]> allPieces = new ArrayList<>();
+        for (String fen : Perft.TEST_FENS) {
+            List<Board> boards = new ArrayList<>();
+            ValidatorBenchmark.collect(Board.fromFen(fen), depth, boards);
+
+            // 局面数、被将军的次数、不一致的次数
+            long[] result = new long[3];
+            for (Board board : boards) {
+                ChessPiece[] pieces = ValidatorBenchmark.toPieces(board);
+                LegacyMoveRuleValidator legacy = new LegacyMoveRuleValidator(pieces);
+                MoveRuleValidator validator = new MoveRuleValidator(board);
+                result[0]++;
+                for (String color : COLORS) {
+                    boolean expected = legacy.isKingInCheck(color, pieces);
+                    boolean inCheck = MoveGenerator.isInCheck(board, Board.sideOf(color));
+                    if (expected) result[1]++;
+                    if (inCheck != expected || validator.isKingInCheck(color) != expected) {
+                        if (result[2] < 10) {
+                            System.out.println("  不一致: " + board.toFen() + " " + color + " 逐子扫描 " + expected + ", 反查 " + inCheck);
+                        }
+                        result[2]++;
+                    }
+                }
+                allPieces.add(pieces);
+            }
+            allBoards.addAll(boards);
+            System.out.println(fen);
+            System.out.println("  深度 " + depth + ": " + result[0] + " 个局面, " + result[1] + " 次被将军"
+                    + (result[2] > 0 ? ", 错误: " + result[2] + " 处不一致" : ""));
+            passed &= result[2] == 0;
+        }
+
+        long checks = allBoards.size() * 2L;
+        long legacyNanos = Long.MAX_VALUE;
+        long rayNanos = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            legacyNanos = Math.min(legacyNanos, timeLegacy(allPieces));
+            rayNanos = Math.min(rayNanos, timeRay(allBoards));
+        }
+        System.out.println(allBoards.size() + " 个局面, 每轮 " + checks + " 次将军检测");
+        ValidatorBenchmark.report("逐子扫描", checks, legacyNanos);
+        ValidatorBenchmark.report("从将/帅反查", checks, rayNanos);
+        System.out.printf("  加速比: %.1f 倍%n", (double) legacyNanos / rayNanos);
+        System.out.println(passed ? "将军检测全部一致" : "将军检测存在错误");
+    }
+
+    // 返回值计入被将军的次数，避免循环被当作无用代码优化掉
+    private static long timeLegacy(List<ChessPiece[]> positions) {
+        long start = System.nanoTime();
+        long inCheck = 0;
+        for (ChessPiece[] pieces : positions) {
+            LegacyMoveRuleValidator validator = new LegacyMoveRuleValidator(pieces);
+            for (String color : COLORS) {
+                if (validator.isKingInCheck(color, pieces)) inCheck++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return inCheck < 0 ? 0 : elapsed;
+    }
+
+    private static long timeRay(List<Board> boards) {
+        long start = System.nanoTime();
+        long inCheck = 0;
+        for (Board board : boards) {
+            if (MoveGenerator.isInCheck(board, Board.RED)) inCheck++;
+            if (MoveGenerator.isInCheck(board, Board.BLACK)) inCheck++;
+        }
+        long elapsed = System.nanoTime() - start;
+        return inCheck < 0 ? 0 : elapsed;
+    }
+}
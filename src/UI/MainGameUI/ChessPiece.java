@@ -1,30 +1,71 @@
 package UI.MainGameUI;
 
+import UI.AI.Board;
+
 // 棋子数据模型
+// 类型和颜色合在一个字节的棋子编码里（与 UI.AI.Board 使用的编码相同），判断棋子时只比较整数，不再比较字符串
 public class ChessPiece {
-    public String type;
-    public String color;
+    // 棋子编码对应的显示文字，按编码缓存
+    private static final String[] GLYPHS = new String[Board.BLACK_FLAG + 8];
+
+    static {
+        for (int code = 0; code < GLYPHS.length; code++) {
+            GLYPHS[code] = Board.typeOf(code) == Board.EMPTY ? "" : Board.pieceName(code);
+        }
+    }
+
+    public final byte code;
     public int x;
     public int y;
 
     public ChessPiece(String type, String color, int x, int y) {
-        this.type = type;
-        this.color = color;
+        this(Board.pieceCode(type, color), x, y);
+    }
+
+    public ChessPiece(int code, int x, int y) {
+        this.code = (byte) code;
         this.x = x;
         this.y = y;
     }
 
     // 拷贝构造函数
     public ChessPiece(ChessPiece other) {
-        this.type = other.type;
-        this.color = other.color;
+        this.code = other.code;
         this.x = other.x;
         this.y = other.y;
     }
 
+    // 棋子类型（Board.KING、Board.ROOK 等）
+    public int type() {
+        return Board.typeOf(code);
+    }
+
+    // 执子方（Board.RED 或 Board.BLACK）
+    public int side() {
+        return Board.sideOf(code);
+    }
+
+    public boolean isRed() {
+        return side() == Board.RED;
+    }
+
+    public boolean isKing() {
+        return type() == Board.KING;
+    }
+
+    // 颜色名称 "RED" / "BLACK"，用于存档和走法记录
+    public String color() {
+        return Board.colorOf(side());
+    }
+
+    // 棋盘上显示的文字
+    public String glyph() {
+        return GLYPHS[code];
+    }
+
     // 方便调试
     @Override
     public String toString() {
-        return color + " " + type + " (" + x + "," + y + ")";
+        return color() + " " + glyph() + " (" + x + "," + y + ")";
     }
-}
\ No newline at end of file
+}
@@ -293,7 +293,7 @@ public class LoadArchiveController {
             gc.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
 
             // 绘制棋子边框
-            Color pieceColor = p.color.equals("RED") ? RED_COLOR : Color.BLACK;
+            Color pieceColor = p.isRed() ? RED_COLOR : Color.BLACK;
             gc.setStroke(pieceColor);
             gc.setLineWidth(2);
             gc.strokeOval(x - radius, y - radius, 2 * radius, 2 * radius);
@@ -304,8 +304,8 @@ public class LoadArchiveController {
 
             // 绘制棋子文字
             gc.setFill(pieceColor);
-            gc.setFont(p.color.equals("RED") ? redPieceFont : blackPieceFont);
-            gc.fillText(p.type, x, y);
+            gc.setFont(p.isRed() ? redPieceFont : blackPieceFont);
+            gc.fillText(p.glyph(), x, y);
         }
     }
 
@@ -398,7 +398,7 @@ public class LoadArchiveController {
 
         if (selectedFile != null) {
             try (BufferedReader reader = new BufferedReader(new FileReader(selectedFile))) {
-                Gson gson = new Gson();
+                Gson gson = GameArchiveManager.createGson(false);
                 GameArchiveManager.GameArchiveData importedData = gson.fromJson(reader, GameArchiveManager.GameArchiveData.class);
 
                 if (importedData != null && importedData.pieces != null && importedData.currentPlayerColor != null) {
@@ -1,13 +1,22 @@
 package UI.MainGameUI;
 
 import UI.AI.AILogic;
+import UI.AI.Board;
+import UI.AI.EndgameTablebase;
+import UI.AI.MoveGenerator;
+import UI.AI.OpeningBook;
+import UI.AI.SearchLimits;
+import UI.AI.SearchListener;
+import UI.AI.SearchStats;
 import UI.MainUI.MainLauncher;
+import UI.Models.ArchiveWriter;
 import UI.Models.AudioModel;
 import UI.Models.GetAppPath;
 import UI.Models.GameArchiveManager;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -37,6 +46,9 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static UI.MainUI.MainController.getSessionIdentifier;
 import static UI.MainUI.MainController.getUserName;
@@ -58,6 +70,9 @@ public class MainGameController {
     @FXML private Label checkAlertLabel;
     @FXML private Button muteButton;
     @FXML private HBox buttonContainer;
+    @FXML private Label searchStatsLabel;
+    @FXML private Button searchStatsButton;
+    @FXML private Label saveStatusLabel;
 
 
     // 常量定义
@@ -83,6 +98,7 @@ public class MainGameController {
     // 棋子数据
     private ChessPiece[] pieces;
     private ChessPiece[] initialPieces; // 保存棋盘初始状态
+    private Board board; // 与 pieces 同步的棋盘数组，规则校验和 AI 共用
     private MoveRuleValidator ruleValidator; // 规则校验器
 
     // 游戏状态变量
@@ -101,8 +117,15 @@ public class MainGameController {
     // 用于高亮显示上一步
     private GameMove lastMove = null;
 
-    // 当前加载的存档文件名（如果有的话）
-    private String currentSaveFileName = null;
+    // 当前加载的存档文件名（如果有的话），自动保存第一次建立存档时由存档写入线程设置
+    private volatile String currentSaveFileName = null;
+
+    // 存档在后台写入线程上进行，JavaFX 线程只复制当前局面；
+    // 同一局的自动保存和手动保存使用同一个键，按提交顺序执行，排队时只写最新的状态
+    private final ArchiveWriter archiveWriter = ArchiveWriter.getInstance();
+    private final String saveKey = "save-" + UUID.randomUUID();
+    // 离开对局时等待存档写完的最长时间
+    private static final long SAVE_FLUSH_TIMEOUT_MS = 5000;
 
     private final String SOUND_ICON = "M3 9v6h4l5 5V4L7 9H3zm13.5 3c0-1.77-1.02-3.29-2.5-4.03v8.05c1.48-.73 2.5-2.25 2.5-4.02zM14 3.23v2.06c2.89.86 5 3.54 5 6.71s-2.11 5.85-5 6.71v2.06c4.01-.91 7-4.49 7-8.77s-2.99-7.86-7-8.77z";
     private final String MUTE_ICON = "M16.5 12c0 .94-.2 1.82-.54 2.64l1.51 1.51C20.63 14.91 21 13.5 21 12c0-4.28-2.99-7.86-7-8.77v2.06c2.89.86 5 3.54 5 6.71zM4.27 3L3 4.27 7.73 9H3v6h4l5 5v-6.73l4.25 4.25c-.67.52-1.42.93-2.25 1.18v2.06c1.38-.31 2.63-.95 3.69-1.81L19.73 21 21 19.73l-9-9L4.27 3zM12 4L9.91 6.09 12 8.18V4z";
@@ -113,6 +136,29 @@ public class MainGameController {
     private boolean isAIGame = false;
     private String aiColor = "BLACK";
     private int aiSearchDepth = 2;
+    // AI 每步思考时间（毫秒），迭代加深在时间用完时返回最后完成的一层结果
+    private long aiTimeLimitMs = 500;
+    // 开局库文件（放在应用数据目录下，由 UI.AI.OpeningBookBuilder 生成），所有对局共用同一个内存映射
+    private static final String OPENING_BOOK_FILE = "openingBook.bin";
+    private static OpeningBook openingBook;
+    private static boolean openingBookLoaded = false;
+    // 残局库目录（放在应用数据目录下，由 UI.AI.EndgameTableGenerator 生成）
+    private static final String TABLEBASE_DIRECTORY = "tablebase";
+    private static EndgameTablebase tablebase;
+    private static boolean tablebaseLoaded = false;
+    // AI 搜索（包括后台思考）在同一个后台线程上依次执行
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AI-Search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 后台思考：玩家思考时，AI 按预测的玩家走法提前搜索
+    private boolean ponderEnabled = false;
+    private Future<GameMove> ponderTask;
+    // 预测的玩家走法，为 null 时后台思考只是在玩家的局面上预热置换表
+    private GameMove ponderMove;
+    // 是否在棋盘上显示 AI 搜索统计（本次运行中的所有对局共用）
+    private static boolean searchStatsVisible = false;
 
 
     @FXML
@@ -185,13 +231,45 @@ public class MainGameController {
 
         // 初始化棋盘和规则
         initializePieces();
-        ruleValidator = new MoveRuleValidator(pieces);
+        board = Board.fromPieces(pieces);
+        ruleValidator = new MoveRuleValidator(board);
 
         updateTurnDisplay(); // 更新回合显示
         drawBoard();
         drawPieces();
 
         chessBoardCanvas.setOnMouseClicked(this::handleCanvasClick);
+        archiveWriter.setStatusListener(status -> Platform.runLater(() -> showSaveStatus(status)));
+    }
+
+    // 存档写入状态
+    private void showSaveStatus(ArchiveWriter.Status status) {
+        if (saveStatusLabel == null) return;
+        switch (status) {
+            case SAVING -> saveStatusLabel.setText("保存中…");
+            case SAVED -> saveStatusLabel.setText("已保存 " + new SimpleDateFormat("HH:mm:ss").format(new Date()));
+            case FAILED -> saveStatusLabel.setText("保存失败");
+        }
+    }
+
+    /**
+     * 等待已经提交的存档写完（窗口关闭、离开对局时调用）
+     */
+    public void flushPendingSaves() {
+        if (!archiveWriter.flush(SAVE_FLUSH_TIMEOUT_MS)) {
+            System.err.println("存档没有在 " + SAVE_FLUSH_TIMEOUT_MS + "ms 内写完");
+        }
+    }
+
+    /**
+     * 离开对局或关闭窗口时停止 AI 搜索并释放辅助搜索线程
+     */
+    public void releaseAI() {
+        stopPondering();
+        aiExecutor.shutdownNow();
+        if (aiLogic != null) {
+            aiLogic.shutdown();
+        }
     }
 
     public void setGameMode(String gameMode, String difficulty) {
@@ -199,25 +277,99 @@ public class MainGameController {
         this.difficulty = difficulty;
         if ("AI".equals(this.gameMode)) {
             this.isAIGame = true;
+            if (this.aiLogic != null) {
+                this.aiLogic.shutdown();
+            }
             this.aiLogic = new AILogic();
+            // 每完成一次迭代刷新搜索统计，搜索结束时打印日志
+            this.aiLogic.setSearchListener(new SearchListener() {
+                @Override
+                public void iterationCompleted(SearchStats stats) {
+                    Platform.runLater(() -> showSearchStats(stats));
+                }
+
+                @Override
+                public void searchCompleted(SearchStats stats) {
+                    System.out.println((stats.pondering ? "AI 后台思考完成: " : "AI 搜索完成: ") + stats);
+                }
+
+                @Override
+                public void helperFailed(Throwable error) {
+                    System.err.println("AI 辅助线程异常: " + error);
+                }
+            });
+            if (searchStatsButton != null) {
+                searchStatsButton.setVisible(true);
+                searchStatsButton.setManaged(true);
+            }
+            if (searchStatsLabel != null) {
+                searchStatsLabel.setVisible(searchStatsVisible);
+            }
+            // 简单难度每步只搜一层，不需要后台思考
+            this.ponderEnabled = !"简单".equals(this.difficulty);
+            if (!"简单".equals(this.difficulty)) {
+                this.aiLogic.setOpeningBook(getOpeningBook());
+                this.aiLogic.setTablebase(getTablebase());
+            }
             switch (this.difficulty) {
                 case "简单":
                     this.aiSearchDepth = 1;
+                    this.aiTimeLimitMs = 200;
                     break;
                 case "中等":
-                    this.aiSearchDepth = 3;
+                    this.aiSearchDepth = 4;
+                    this.aiTimeLimitMs = 800;
                     break;
                 case "困难":
-                    this.aiSearchDepth = 4;
+                    this.aiSearchDepth = SearchLimits.MAX_DEPTH;
+                    this.aiTimeLimitMs = 2500;
                     break;
                 default:
                     this.aiSearchDepth = 2;
+                    this.aiTimeLimitMs = 500;
                     break;
             }
             showAlert("提示", "人机对战开始！您执红方，先行。");
         }
     }
 
+    // 第一次进入人机对局时加载开局库，文件不存在时不使用开局库
+    private static synchronized OpeningBook getOpeningBook() {
+        if (!openingBookLoaded) {
+            openingBookLoaded = true;
+            File file = new File(getAppPath(), OPENING_BOOK_FILE);
+            if (file.exists()) {
+                try {
+                    openingBook = OpeningBook.open(file.toPath());
+                    System.out.println("开局库已加载: " + openingBook.size() + " 个条目");
+                } catch (IOException e) {
+                    System.err.println("开局库加载失败: " + e.getMessage());
+                }
+            }
+        }
+        return openingBook;
+    }
+
+    // 第一次进入人机对局时加载残局库，目录不存在或为空时不使用残局库
+    private static synchronized EndgameTablebase getTablebase() {
+        if (!tablebaseLoaded) {
+            tablebaseLoaded = true;
+            File directory = new File(getAppPath(), TABLEBASE_DIRECTORY);
+            if (directory.isDirectory()) {
+                try {
+                    EndgameTablebase loaded = EndgameTablebase.load(directory.toPath());
+                    if (!loaded.isEmpty()) {
+                        tablebase = loaded;
+                        System.out.println("残局库已加载: " + loaded.size() + " 个子力组合");
+                    }
+                } catch (IOException e) {
+                    System.err.println("残局库加载失败: " + e.getMessage());
+                }
+            }
+        }
+        return tablebase;
+    }
+
     // 初始化棋子布局
     private void initializePieces() {
         pieces = new ChessPiece[]{
@@ -307,7 +459,7 @@ public class MainGameController {
         boolean moved = false;
 
         if (selectedPiece == null) {
-            if (clickedPiece != null && clickedPiece.color.equals(currentPlayerColor)) {
+            if (clickedPiece != null && clickedPiece.side() == Board.sideOf(currentPlayerColor)) {
                 selectedPiece = clickedPiece;
                 calculateValidMoves();
                 drawBoard();
@@ -319,7 +471,7 @@ public class MainGameController {
                 clearValidMoves();
                 drawBoard();
                 drawPieces();
-            } else if (clickedPiece != null && clickedPiece.color.equals(selectedPiece.color)) {
+            } else if (clickedPiece != null && clickedPiece.side() == selectedPiece.side()) {
                 selectedPiece = clickedPiece;
                 calculateValidMoves();
                 drawBoard();
@@ -334,7 +486,7 @@ public class MainGameController {
                             String opponentColor = currentPlayerColor.equals("RED") ? "BLACK" : "RED";
                             if (isStalemate(opponentColor)) {
                                 // 无路可走，判断是绝杀还是困毙
-                                if (ruleValidator.isKingInCheck(opponentColor, pieces)) {
+                                if (ruleValidator.isKingInCheck(opponentColor)) {
                                     // 被将军，是绝杀
                                     handleGameEnd(getKing(opponentColor), true);
                                 } else {
@@ -371,20 +523,31 @@ public class MainGameController {
     }
 
     private void startAITurn() {
+        if (aiExecutor.isShutdown()) return; // 已经离开对局
         setBoardInputEnabled(false);
         
         // 更新显示，提示AI正在思考
         updateTurnDisplay();
 
+        // 玩家走了预测的走法时直接使用后台思考的结果，否则停止后台思考重新搜索（置换表中的结果仍然有用）
+        Future<GameMove> ponderResult = takePonderResult();
+        ChessPiece[] position = copyPieces(pieces);
+        SearchLimits limits = new SearchLimits(aiSearchDepth, aiTimeLimitMs, 0);
+
         Task<GameMove> aiTask = new Task<>() {
             @Override
             protected GameMove call() throws Exception {
-                return getBestMoveUsingMinimax(pieces, aiSearchDepth);
+                if (ponderResult != null) {
+                    GameMove ponderBest = ponderResult.get();
+                    if (ponderBest != null) return ponderBest;
+                }
+                return getBestMove(position, limits);
             }
         };
 
         aiTask.setOnSucceeded(event -> {
             GameMove bestMove = aiTask.getValue();
+            showSearchStats(aiLogic.getLastSearchStats());
 
             if (bestMove != null) {
                 ChessPiece pieceToMove = getPieceAt(bestMove.fromX, bestMove.fromY);
@@ -394,13 +557,14 @@ public class MainGameController {
             if (!isGameOver) {
                 String opponentColor = currentPlayerColor.equals("RED") ? "BLACK" : "RED";
                 if (isStalemate(opponentColor)) {
-                    if (ruleValidator.isKingInCheck(opponentColor, pieces)) {
+                    if (ruleValidator.isKingInCheck(opponentColor)) {
                         handleGameEnd(getKing(opponentColor), true);
                     } else {
                         handleGameEndDraw("困毙");
                     }
                 } else {
                     switchTurn();
+                    startPondering();
                 }
             }
 
@@ -409,11 +573,112 @@ public class MainGameController {
             setBoardInputEnabled(true);
         });
 
-        new Thread(aiTask).start();
+        aiExecutor.submit(aiTask);
     }
 
-    private GameMove getBestMoveUsingMinimax(ChessPiece[] currentBoard, int depth) {
-        return aiLogic.getBestMoveUsingMinimax(currentBoard, depth, aiColor, ruleValidator);
+    /**
+     * 轮到玩家走棋时开始后台思考
+     * 置换表中有玩家的预测走法时，在走完该走法的局面上为 AI 搜索；
+     * 否则在当前局面上替玩家搜索，把各种应着的结果留在置换表中。
+     */
+    private void startPondering() {
+        if (!ponderEnabled || isGameOver || ponderTask != null || aiExecutor.isShutdown()) return;
+
+        ChessPiece[] position = copyPieces(pieces);
+        GameMove predicted = aiLogic.predictReply(position, currentPlayerColor);
+        ChessPiece[] ponderPosition = predicted != null ? applyMove(position, predicted) : position;
+        String ponderColor = predicted != null ? aiColor : currentPlayerColor;
+        SearchLimits limits = new SearchLimits(aiSearchDepth, aiTimeLimitMs, 0);
+
+        ponderMove = predicted;
+        ponderTask = aiExecutor.submit(() -> aiLogic.ponder(ponderPosition, ponderColor, limits));
+    }
+
+    // 取出后台思考：预测命中时返回其结果，否则停止后台思考并返回 null
+    private Future<GameMove> takePonderResult() {
+        if (ponderTask == null) return null;
+        Future<GameMove> task = ponderTask;
+        GameMove predicted = ponderMove;
+        ponderTask = null;
+        ponderMove = null;
+
+        if (predicted != null && lastMove != null
+                && predicted.fromX == lastMove.fromX && predicted.fromY == lastMove.fromY
+                && predicted.toX == lastMove.toX && predicted.toY == lastMove.toY) {
+            System.out.println("后台思考命中: " + lastMove.pieceName);
+            aiLogic.ponderHit();
+            return task;
+        }
+        aiLogic.stop();
+        task.cancel(false);
+        return null;
+    }
+
+    // 悔棋、结束或离开对局时停止后台思考
+    private void stopPondering() {
+        if (ponderTask == null) return;
+        aiLogic.stop();
+        ponderTask.cancel(false);
+        ponderTask = null;
+        ponderMove = null;
+    }
+
+    private static ChessPiece[] copyPieces(ChessPiece[] source) {
+        ChessPiece[] copy = new ChessPiece[source.length];
+        for (int i = 0; i < source.length; i++) {
+            copy[i] = new ChessPiece(source[i]);
+        }
+        return copy;
+    }
+
+    // 在棋子副本上走一步，返回走完之后的棋子数组
+    private static ChessPiece[] applyMove(ChessPiece[] source, GameMove move) {
+        List<ChessPiece> result = new ArrayList<>(source.length);
+        for (ChessPiece piece : source) {
+            if (piece.x == move.toX && piece.y == move.toY) continue; // 被吃的棋子
+            if (piece.x == move.fromX && piece.y == move.fromY) {
+                piece.x = move.toX;
+                piece.y = move.toY;
+            }
+            result.add(piece);
+        }
+        return result.toArray(new ChessPiece[0]);
+    }
+
+    private GameMove getBestMove(ChessPiece[] currentBoard, SearchLimits limits) {
+        return aiLogic.getBestMove(currentBoard, aiColor, limits);
+    }
+
+    @FXML
+    private void handleToggleSearchStats() {
+        searchStatsVisible = !searchStatsVisible;
+        searchStatsLabel.setVisible(searchStatsVisible);
+        if (searchStatsVisible) {
+            SearchStats stats = aiLogic.getLastSearchStats();
+            searchStatsLabel.setText(stats != null ? formatSearchStats(stats) : "AI 还没有搜索");
+        }
+    }
+
+    // 在棋盘上显示搜索统计（只在 JavaFX 线程上调用）
+    private void showSearchStats(SearchStats stats) {
+        if (!searchStatsVisible || stats == null || searchStatsLabel == null) return;
+        searchStatsLabel.setText(formatSearchStats(stats));
+    }
+
+    private static String formatSearchStats(SearchStats stats) {
+        if (stats.source != SearchStats.Source.SEARCH) {
+            return stats.toString();
+        }
+        StringBuilder iterations = new StringBuilder();
+        for (long time : stats.iterationTimesMs) {
+            if (iterations.length() > 0) iterations.append(' ');
+            iterations.append(time);
+        }
+        return String.format("%s深度 %d/%d  分数 %d%n节点 %,d（静态 %,d）  %,d nps%n"
+                        + "置换表命中 %.1f%%  首着截断 %.1f%%  线程 %d%n耗时 %dms  各层 %s%n主要变例 %s",
+                stats.pondering ? "后台思考  " : "", stats.depth, stats.selDepth, stats.score,
+                stats.nodes, stats.qnodes, stats.nps(), stats.ttHitRate() * 100, stats.firstMoveCutoffRate() * 100,
+                stats.threads, stats.timeMs, iterations, stats.pvString());
     }
 
 
@@ -432,13 +697,15 @@ public class MainGameController {
             return;
         }
 
-        // 遍历棋盘上的所有位置
-        for (int x = 0; x < COLS; x++) {
-            for (int y = 0; y < ROWS; y++) {
-                // 检查从选中棋子的位置到当前位置的移动是否合法
-                if (ruleValidator.isValidMove(selectedPiece.x, selectedPiece.y, x, y)) {
-                    validMoves[x][y] = true;
-                }
+        // 只检查选中棋子按走法规则能到达的位置
+        int[] targets = new int[MoveGenerator.MAX_TARGETS];
+        int count = MoveGenerator.generateTargets(board, Board.square(selectedPiece.x, selectedPiece.y), targets);
+        for (int i = 0; i < count; i++) {
+            int x = Board.fileOf(targets[i]);
+            int y = Board.rankOf(targets[i]);
+            // 检查从选中棋子的位置到当前位置的移动是否合法
+            if (ruleValidator.isValidMove(selectedPiece.x, selectedPiece.y, x, y)) {
+                validMoves[x][y] = true;
             }
         }
     }
@@ -464,43 +731,44 @@ public class MainGameController {
         }
 
         // 记录移动历史
-        GameMove move = new GameMove(pieceToMove.x, pieceToMove.y, newX, newY, System.currentTimeMillis(), pieceToMove.type, pieceToMove.color, capturedPiece);
+        GameMove move = new GameMove(pieceToMove.x, pieceToMove.y, newX, newY, System.currentTimeMillis(), pieceToMove.glyph(), pieceToMove.color(), capturedPiece);
         gameMoves.add(move);
         lastMove = move;
 
+        board.movePiece(Board.square(pieceToMove.x, pieceToMove.y), Board.square(newX, newY));
         pieceToMove.x = newX;
         pieceToMove.y = newY;
-        ruleValidator = new MoveRuleValidator(pieces);
-        System.out.println(pieceToMove.type + " 移动到 (" + newX + ", " + newY + ")");
+        System.out.println(pieceToMove.glyph() + " 移动到 (" + newX + ", " + newY + ")");
 
         // 检查胜利条件
-        if (capturedPiece != null && (capturedPiece.type.equals("帅") || capturedPiece.type.equals("将"))) {
+        if (capturedPiece != null && capturedPiece.isKing()) {
             handleGameEnd(capturedPiece, false);
         } else {
             // 检查是否吃子，如果吃子则显示吃子特效
             if (capturedPiece != null) {
-                handleCaptureEffect(pieceToMove.color, newX, newY);
+                handleCaptureEffect(pieceToMove.color(), newX, newY);
             }
 
             // 检查是否将军
-            String opponentColor = pieceToMove.color.equals("RED") ? "BLACK" : "RED";
-            if (ruleValidator.isKingInCheck(opponentColor, pieces)) {
-                handleCheckEffect(pieceToMove.color);
+            String opponentColor = Board.colorOf(Board.opponent(pieceToMove.side()));
+            if (ruleValidator.isKingInCheck(opponentColor)) {
+                handleCheckEffect(pieceToMove.color());
             }
         }
     }
 
     private void handleGameEnd(ChessPiece king, boolean isStalemate) {
         isGameOver = true;
+        stopPondering();
         updateTurnDisplay();
         String winner;
         String victoryMessage;
 
         if (isStalemate) {
-            winner = king.color.equals("RED") ? "黑方" : "红方";
+            winner = king.isRed() ? "黑方" : "红方";
             victoryMessage = winner + "获胜 (绝杀)";
         } else {
-            winner = king.color.equals("RED") ? "黑方" : "红方";
+            winner = king.isRed() ? "黑方" : "红方";
             victoryMessage = winner + "获胜";
         }
 
@@ -524,6 +792,7 @@ public class MainGameController {
 
     private void handleGameEndDraw(String reason) {
         isGameOver = true;
+        stopPondering();
         updateTurnDisplay();
         String victoryMessage = "和棋 (" + reason + ")";
 
@@ -574,6 +843,9 @@ public class MainGameController {
 
     // 获取指定坐标的棋子
     private ChessPiece getPieceAt(int x, int y) {
+        if (board.isEmpty(x, y)) {
+            return null;
+        }
         return Arrays.stream(pieces)
                 .filter(p -> p != null && p.x == x && p.y == y)
                 .findFirst()
@@ -581,11 +853,11 @@ public class MainGameController {
     }
 
     private ChessPiece getKing(String color) {
-        String kingType = color.equals("RED") ? "帅" : "将";
-        return Arrays.stream(pieces)
-                .filter(p -> p.type.equals(kingType) && p.color.equals(color))
-                .findFirst()
-                .orElse(null);
+        int kingSq = board.kingSquare(Board.sideOf(color));
+        if (kingSq == 0) {
+            return null;
+        }
+        return getPieceAt(Board.fileOf(kingSq), Board.rankOf(kingSq));
     }
 
     // 自动保存游戏
@@ -609,21 +881,37 @@ public class MainGameController {
         }
 
         GameArchiveManager archiveManager = new GameArchiveManager(effectiveUserName, effectivePasswordHash);
-        boolean success;
+        // 在 JavaFX 线程上复制当前状态，加密和写文件交给存档写入线程
+        ChessPiece[] piecesSnapshot = copyPieces(pieces);
+        List<GameMove> movesSnapshot = new ArrayList<>(gameMoves);
+        String colorSnapshot = currentPlayerColor;
+        String fileName = currentSaveFileName;
+        archiveWriter.submit(saveKey, () ->
+                writeAutoSave(archiveManager, fileName, piecesSnapshot, movesSnapshot, colorSnapshot, isGuest));
+    }
 
-        if (currentSaveFileName != null && !currentSaveFileName.isEmpty()) {
-            success = archiveManager.updateGame(currentSaveFileName, pieces, gameMoves, currentPlayerColor);
+    // 在存档写入线程上执行自动保存
+    private boolean writeAutoSave(GameArchiveManager archiveManager, String fileName, ChessPiece[] pieces,
+                                  List<GameMove> moves, String color, boolean isGuest) {
+        // 提交时还没有存档的话，之前的自动保存可能已经建立了
+        if (fileName == null || fileName.isEmpty()) {
+            fileName = currentSaveFileName;
+        }
+        boolean success;
+        if (fileName != null && !fileName.isEmpty()) {
+            // 只把新走法追加到走法日志
+            success = archiveManager.autoSaveGame(fileName, pieces, moves, color);
         } else {
             // 此情况理论上应由 initialize 处理，但作为后备
-            success = archiveManager.saveGame(pieces, gameMoves, currentPlayerColor, isAIGame, difficulty);
+            String created = archiveManager.saveNewGame(pieces, moves, color, isAIGame, difficulty);
+            success = created != null;
             if (success) {
-                List<GameArchiveManager.SaveFileInfo> saveFiles = archiveManager.getSaveFiles();
-                if (!saveFiles.isEmpty()) {
-                    currentSaveFileName = saveFiles.get(0).getFileName();
-                    if (isGuest) {
-                        String savePath = GameArchiveManager.getUserSaveDir(GUEST_USER);
-                        new File(savePath, currentSaveFileName).deleteOnExit();
-                    }
+                synchronized (this) {
+                    if (currentSaveFileName == null) currentSaveFileName = created;
+                }
+                if (isGuest) {
+                    String savePath = GameArchiveManager.getUserSaveDir(GUEST_USER);
+                    new File(savePath, created).deleteOnExit();
                 }
             }
         }
@@ -633,6 +921,23 @@ public class MainGameController {
         } else {
             System.err.println("游戏自动保存失败");
         }
+        return success;
+    }
+
+    // 在存档写入线程上执行手动保存：如果当前有存档文件，则完整重写该文件，否则创建新文件
+    private boolean writeManualSave(GameArchiveManager archiveManager, ChessPiece[] pieces,
+                                    List<GameMove> moves, String color) {
+        // 在写入线程上读取，之前排队的自动保存可能已经建立了存档
+        String fileName = currentSaveFileName;
+        if (fileName != null && !fileName.isEmpty()) {
+            return archiveManager.updateGame(fileName, pieces, moves, color);
+        }
+        String created = archiveManager.saveNewGame(pieces, moves, color, isAIGame, difficulty);
+        if (created == null) return false;
+        synchronized (this) {
+            if (currentSaveFileName == null) currentSaveFileName = created;
+        }
+        return true;
     }
 
     // 绘制棋盘
@@ -779,7 +1084,7 @@ public class MainGameController {
         gc.setFill(Color.web("green", 0.6));
         for (int x = 0; x < COLS; x++) {
             for (int y = 0; y < ROWS; y++) {
-                if (validMoves[x][y] && getPieceAt(x, y) == null) {
+                if (validMoves[x][y] && board.isEmpty(x, y)) {
                     double posX = x * CELL_SIZE + offsetX;
                     double posY = y * CELL_SIZE + offsetY;
                     gc.fillOval(posX - 5, posY - 5, 10, 10);
@@ -796,7 +1101,7 @@ public class MainGameController {
             gc.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
 
             // 绘制棋子边框
-            Color pieceColor = p.color.equals("RED") ? RED_COLOR : Color.BLACK;
+            Color pieceColor = p.isRed() ? RED_COLOR : Color.BLACK;
             gc.setStroke(pieceColor);
             gc.setLineWidth(2);
             gc.strokeOval(x - radius, y - radius, 2 * radius, 2 * radius);
@@ -814,7 +1119,7 @@ public class MainGameController {
             }
 
             // 如果这个位置是可以吃的棋子，绘制红色边框
-            if (validMoves[p.x][p.y] && getPieceAt(p.x, p.y) != null) {
+            if (validMoves[p.x][p.y]) {
                 gc.setStroke(Color.RED);
                 gc.setLineWidth(3);
                 gc.strokeOval(x - radius - 5, y - radius - 5, 2 * radius + 10, 2 * radius + 10);
@@ -822,8 +1127,8 @@ public class MainGameController {
 
             // 绘制棋子文字
             gc.setFill(pieceColor);
-            gc.setFont(p.color.equals("RED") ? redPieceFont : blackPieceFont);
-            gc.fillText(p.type, x, y);
+            gc.setFont(p.isRed() ? redPieceFont : blackPieceFont);
+            gc.fillText(p.glyph(), x, y);
         }
     }
 
@@ -850,24 +1155,23 @@ public class MainGameController {
         }
 
         GameArchiveManager archiveManager = new GameArchiveManager(currentUserName, passwordHash);
-        boolean success;
-
-        // 如果当前有加载的存档文件，则更新该文件，否则创建新文件
-        if (currentSaveFileName != null && !currentSaveFileName.isEmpty()) {
-            success = archiveManager.updateGame(currentSaveFileName, pieces, gameMoves, currentPlayerColor);
-        } else {
-            success = archiveManager.saveGame(pieces, gameMoves, currentPlayerColor, isAIGame, difficulty);
-        }
-
-        if (success) {
-            // 显示保存成功提示
-            showAlert("提示", "游戏保存成功");
-            System.out.println("游戏保存成功");
-        } else {
-            // 显示保存失败提示
-            showAlert("错误", "游戏保存失败");
-            System.err.println("保存失败");
-        }
+        ChessPiece[] piecesSnapshot = copyPieces(pieces);
+        List<GameMove> movesSnapshot = new ArrayList<>(gameMoves);
+        String colorSnapshot = currentPlayerColor;
+
+        // 写完后回到 JavaFX 线程提示结果；排队中被之后的自动保存替换时，提示的是替换它的（更新的）写入的结果
+        archiveWriter.submit(saveKey, () -> writeManualSave(archiveManager, piecesSnapshot, movesSnapshot, colorSnapshot),
+                success -> Platform.runLater(() -> {
+                    if (success) {
+                        // 显示保存成功提示
+                        showAlert("提示", "游戏保存成功");
+                        System.out.println("游戏保存成功");
+                    } else {
+                        // 显示保存失败提示
+                        showAlert("错误", "游戏保存失败");
+                        System.err.println("保存失败");
+                    }
+                }));
     }
 
     @FXML
@@ -906,18 +1210,24 @@ public class MainGameController {
     @FXML
     private void handleBackToMenu() {
         System.out.println("返回主菜单");
+        releaseAI();
         boolean isGuest = (sessionIdentifier == null || sessionIdentifier.isEmpty());
 
         if (!isGuest && !isGameOver && !gameMoves.isEmpty()) {
             // 注册用户且游戏未结束且有移动：静默保存游戏
             autoSaveGame();
-        } else if (isGuest) {
+        }
+        // 等待排队的存档写完，游客的临时存档也要等写完再删除
+        flushPendingSaves();
+        archiveWriter.setStatusListener(null);
+        if (isGuest) {
             // 游客：删除临时存档
             if (currentSaveFileName != null && !currentSaveFileName.isEmpty()) {
                 String savePath = GameArchiveManager.getUserSaveDir(GUEST_USER);
                 File tempFile = new File(savePath, currentSaveFileName);
                 if (tempFile.exists()) {
-                    if (tempFile.delete()) {
+                    GameArchiveManager guestArchiveManager = new GameArchiveManager(GUEST_USER, GUEST_PASS_HASH);
+                    if (guestArchiveManager.deleteGame(currentSaveFileName)) {
                         System.out.println("临时游客存档已删除: " + currentSaveFileName);
                     } else {
                         System.err.println("删除临时游客存档失败: " + currentSaveFileName);
@@ -949,6 +1259,7 @@ public class MainGameController {
             showAlert("提示", "没有可以悔棋的步骤了！");
             return;
         }
+        stopPondering();
 
         // 移除最后一步
         GameMove lastMoveRecord = gameMoves.remove(gameMoves.size() - 1);
@@ -960,7 +1271,7 @@ public class MainGameController {
         for (ChessPiece piece : pieces) {
             if (piece.x == lastMoveRecord.toX && piece.y == lastMoveRecord.toY) {
                 // 为了更精确地匹配，可以比较棋子类型和颜色
-                if (piece.type.equals(lastMoveRecord.pieceName) && piece.color.equals(lastMoveRecord.pieceColor)) {
+                if (piece.code == Board.pieceCode(lastMoveRecord.pieceName, lastMoveRecord.pieceColor)) {
                     movedPiece = piece;
                     break;
                 }
@@ -970,6 +1281,7 @@ public class MainGameController {
         if (movedPiece != null) {
             movedPiece.x = lastMoveRecord.fromX;
             movedPiece.y = lastMoveRecord.fromY;
+            board.movePiece(Board.square(lastMoveRecord.toX, lastMoveRecord.toY), Board.square(lastMoveRecord.fromX, lastMoveRecord.fromY));
         }
 
         // 如果上一步是吃子，则需要恢复被吃的棋子
@@ -978,14 +1290,13 @@ public class MainGameController {
             List<ChessPiece> pieceList = new ArrayList<>(Arrays.asList(pieces));
             pieceList.add(lastMoveRecord.capturedPiece);
             pieces = pieceList.toArray(new ChessPiece[0]);
+            ChessPiece captured = lastMoveRecord.capturedPiece;
+            board.addPiece(Board.square(captured.x, captured.y), captured.code);
         }
 
         // 切换回上一回合
         switchTurn();
 
-        // 更新规则校验器
-        ruleValidator = new MoveRuleValidator(pieces);
-
         // 重新绘制棋盘
         drawBoard();
         drawPieces();
@@ -1043,8 +1354,7 @@ public class MainGameController {
             String loserName = loserColor.equals("RED") ? "红方" : "黑方";
 
             // 创建一个假的被吃掉的棋子（帅或将）来表示投降
-            String loserKingType = loserColor.equals("RED") ? "帅" : "将";
-            ChessPiece fakeCapturedPiece = new ChessPiece(loserKingType, loserColor, -1, -1);
+            ChessPiece fakeCapturedPiece = new ChessPiece(Board.KING | Board.sideFlag(Board.sideOf(loserColor)), -1, -1);
 
             // 结束游戏，对方获胜
             handleGameEndWithSurrender(fakeCapturedPiece, winnerColor, loserName);
@@ -1101,6 +1411,7 @@ public class MainGameController {
      */
     private void handleGameEndWithSurrender(ChessPiece king, String winner, String loser) {
         isGameOver = true;
+        stopPondering();
         updateTurnDisplay();
         String victoryMessage = winner + "获胜 (" + loser + "投降)";
 
@@ -1199,11 +1510,13 @@ public class MainGameController {
     // 用于接收加载的游戏数据
     public void loadGameData(GameArchiveManager.GameArchiveData data) {
         if (data != null) {
+            stopPondering();
             pieces = data.pieces;
             gameMoves = data.moves != null ? data.moves : new ArrayList<>();
             lastMove = gameMoves.isEmpty() ? null : gameMoves.get(gameMoves.size() - 1);
             currentPlayerColor = data.currentPlayerColor != null ? data.currentPlayerColor : "RED";
-            ruleValidator = new MoveRuleValidator(pieces);
+            board = Board.fromPieces(pieces);
+            ruleValidator = new MoveRuleValidator(board);
             updateTurnDisplay();
             drawBoard();
             drawPieces();
@@ -1214,7 +1527,9 @@ public class MainGameController {
     public void loadGameData(GameArchiveManager.GameArchiveData data, String fileName) {
         if (data != null) {
             loadGameData(data);
-            currentSaveFileName = fileName; // 记录当前加载的存档文件名
+            synchronized (this) {
+                currentSaveFileName = fileName; // 记录当前加载的存档文件名
+            }
         }
     }
 
@@ -1332,16 +1647,19 @@ public class MainGameController {
     }
 
     private boolean isStalemate(String playerColor) {
+        int[] targets = new int[MoveGenerator.MAX_TARGETS];
         // 遍历该玩家的所有棋子
+        int side = Board.sideOf(playerColor);
         for (ChessPiece piece : pieces) {
-            if (piece.color.equals(playerColor)) {
-                // 遍历棋盘上的所有位置
-                for (int x = 0; x < COLS; x++) {
-                    for (int y = 0; y < ROWS; y++) {
-                        // 检查是否存在任何一个合法的移动
-                        if (ruleValidator.checkMove(piece.x, piece.y, x, y) == MoveRuleValidator.MoveValidationResult.VALID) {
-                            return false; // 只要找到一个合法移动，就不是绝杀
-                        }
+            if (piece.side() == side) {
+                // 只遍历该棋子按走法规则能到达的位置
+                int count = MoveGenerator.generateTargets(board, Board.square(piece.x, piece.y), targets);
+                for (int i = 0; i < count; i++) {
+                    int x = Board.fileOf(targets[i]);
+                    int y = Board.rankOf(targets[i]);
+                    // 检查是否存在任何一个合法的移动
+                    if (ruleValidator.checkMove(piece.x, piece.y, x, y) == MoveRuleValidator.MoveValidationResult.VALID) {
+                        return false; // 只要找到一个合法移动，就不是绝杀
                     }
                 }
             }
@@ -105,6 +105,13 @@ public class MainGameLauncher {
         loginStage.setTitle("妮可象棋");
         loginStage.setScene(scene);
         loginStage.setResizable(false); // 设定窗口尺寸无法改变
+        // 直接关闭窗口时也等待后台的存档写完，并释放 AI 的搜索线程
+        if (controller != null) {
+            loginStage.setOnHidden(event -> {
+                controller.releaseAI();
+                controller.flushPendingSaves();
+            });
+        }
 
         loginStage.show();
     }
@@ -1,12 +1,13 @@
 package UI.MainGameUI;
 
-import java.util.Arrays;
-import java.util.Optional;
-import java.util.stream.Stream;
+import UI.AI.Board;
+import UI.AI.MoveGenerator;
+
+import static UI.AI.Board.*;
 
 public class MoveRuleValidator {
 
-    private final ChessPiece[] currentPieces;
+    private final Board board;
     private final int ROWS = 10;
     private final int COLS = 9;
 
@@ -18,7 +19,19 @@ public class MoveRuleValidator {
     }
 
     public MoveRuleValidator(ChessPiece[] pieces) {
-        this.currentPieces = pieces;
+        this.board = Board.fromPieces(pieces);
+    }
+
+    /**
+     * 直接使用已有的棋盘，棋盘之后的修改对校验器立即可见
+     * @param board 棋盘
+     */
+    public MoveRuleValidator(Board board) {
+        this.board = board;
+    }
+
+    public Board getBoard() {
+        return board;
     }
 
     /**
@@ -30,31 +43,35 @@ public class MoveRuleValidator {
      * @return MoveValidationResult 枚举，表示移动结果。
      */
     public MoveValidationResult checkMove(int startX, int startY, int endX, int endY) {
-        Optional<ChessPiece> movingPieceOpt = getPieceAt(startX, startY);
-        if (movingPieceOpt.isEmpty()) {
+        if (startX < 0 || startX >= COLS || startY < 0 || startY >= ROWS) {
+            return MoveValidationResult.INVALID_RULE;
+        }
+        int movingPiece = board.pieceAt(startX, startY);
+        if (movingPiece == EMPTY) {
             return MoveValidationResult.INVALID_RULE;
         }
-        ChessPiece movingPiece = movingPieceOpt.get();
 
         if (endX < 0 || endX >= COLS || endY < 0 || endY >= ROWS) {
             return MoveValidationResult.INVALID_RULE;
         }
 
-        if (!isSimpleValidMove(startX, startY, endX, endY)) {
+        int from = square(startX, startY);
+        int to = square(endX, endY);
+        if (!isSimpleValidMove(board, from, to)) {
             return MoveValidationResult.INVALID_RULE;
         }
 
         // 检查当前是否被将军
-        boolean isCurrentlyInCheck = isKingInCheck(movingPiece.color, currentPieces);
-        
+        boolean isCurrentlyInCheck = isKingInCheck(board, sideOf(movingPiece));
+
         // 只有在未被将军时才检查是否会自毙
-        if (!isCurrentlyInCheck && isMoveCausingSelfCheck(movingPiece, endX, endY)) {
+        if (!isCurrentlyInCheck && isMoveCausingSelfCheck(from, to)) {
             return MoveValidationResult.INVALID_SELF_CHECK;
         }
 
         return MoveValidationResult.VALID;
     }
-    
+
     /**
      * 兼容旧的 isValidMove 方法，供 calculateValidMoves 使用。
      */
@@ -62,207 +79,153 @@ public class MoveRuleValidator {
         return checkMove(startX, startY, endX, endY) == MoveValidationResult.VALID;
     }
 
-    private Optional<ChessPiece> getPieceAt(int x, int y) {
-        return Arrays.stream(currentPieces)
-                .filter(p -> p != null && p.x == x && p.y == y)
-                .findFirst();
-    }
-
-    private long countPiecesBetween(int x1, int y1, int x2, int y2, ChessPiece[] pieces) {
-        long count = 0;
-        if (x1 == x2) {
-            int min = Math.min(y1, y2);
-            int max = Math.max(y1, y2);
-            for (int y = min + 1; y < max; y++) {
-                if (getPieceAt(x1, y, pieces).isPresent()) count++;
-            }
-        } else if (y1 == y2) {
-            int min = Math.min(x1, x2);
-            int max = Math.max(x1, x2);
-            for (int x = min + 1; x < max; x++) {
-                if (getPieceAt(x, y1, pieces).isPresent()) count++;
-            }
+    private int countPiecesBetween(Board b, int from, int to) {
+        int step;
+        if (fileOf(from) == fileOf(to)) {
+            step = to > from ? 16 : -16;
+        } else if (rankOf(from) == rankOf(to)) {
+            step = to > from ? 1 : -1;
+        } else {
+            return 0;
+        }
+        int count = 0;
+        for (int sq = from + step; sq != to; sq += step) {
+            if (b.pieceAt(sq) != EMPTY) count++;
         }
         return count;
     }
 
-    private Optional<ChessPiece> getPieceAt(int x, int y, ChessPiece[] pieces) {
-        return Arrays.stream(pieces)
-                .filter(p -> p != null && p.x == x && p.y == y)
-                .findFirst();
+    private boolean isInPalace(int side, int sq) {
+        int x = fileOf(sq);
+        int y = rankOf(sq);
+        if (x < 3 || x > 5) return false;
+        if (side == RED) {
+            return y >= 7 && y <= 9;
+        } else {
+            return y >= 0 && y <= 2;
+        }
     }
 
-    private boolean isValidGeneralMove(ChessPiece piece, int endX, int endY) {
-        int dx = Math.abs(endX - piece.x);
-        int dy = Math.abs(endY - piece.y);
+    private boolean isValidGeneralMove(int side, int from, int to) {
+        int dx = Math.abs(fileOf(to) - fileOf(from));
+        int dy = Math.abs(rankOf(to) - rankOf(from));
         if (!((dx == 1 && dy == 0) || (dx == 0 && dy == 1))) return false;
 
-        if (endX < 3 || endX > 5) return false;
-        if (piece.color.equals("RED")) {
-            if (endY < 7 || endY > 9) return false;
-        } else {
-            if (endY < 0 || endY > 2) return false;
-        }
-        
-        return true;
+        return isInPalace(side, to);
     }
 
-    private boolean isValidAdvisorMove(ChessPiece piece, int endX, int endY) {
-        int dx = Math.abs(endX - piece.x);
-        int dy = Math.abs(endY - piece.y);
+    private boolean isValidAdvisorMove(int side, int from, int to) {
+        int dx = Math.abs(fileOf(to) - fileOf(from));
+        int dy = Math.abs(rankOf(to) - rankOf(from));
         if (!(dx == 1 && dy == 1)) return false;
 
-        if (endX < 3 || endX > 5) return false;
-        if (piece.color.equals("RED")) {
-            if (endY < 7 || endY > 9) return false;
-        } else {
-            if (endY < 0 || endY > 2) return false;
-        }
-        return true;
+        return isInPalace(side, to);
     }
 
-    private boolean isValidElephantMove(ChessPiece piece, int endX, int endY) {
-        int dx = Math.abs(endX - piece.x);
-        int dy = Math.abs(endY - piece.y);
+    private boolean isValidElephantMove(Board b, int side, int from, int to) {
+        int dx = Math.abs(fileOf(to) - fileOf(from));
+        int dy = Math.abs(rankOf(to) - rankOf(from));
         if (!(dx == 2 && dy == 2)) return false;
 
-        if (piece.color.equals("RED")) {
-            if (endY < 5) return false;
+        if (side == RED) {
+            if (rankOf(to) < 5) return false;
         } else {
-            if (endY > 4) return false;
+            if (rankOf(to) > 4) return false;
         }
 
-        int blockX = (piece.x + endX) / 2;
-        int blockY = (piece.y + endY) / 2;
-        if (getPieceAt(blockX, blockY).isPresent()) return false;
-
-        return true;
+        // 象眼
+        return b.pieceAt((from + to) >> 1) == EMPTY;
     }
 
-    private boolean isValidChariotMove(ChessPiece piece, int endX, int endY) {
-        if (piece.x != endX && piece.y != endY) return false;
-        return countPiecesBetween(piece.x, piece.y, endX, endY, currentPieces) == 0;
+    private boolean isValidChariotMove(Board b, int from, int to) {
+        if (fileOf(from) != fileOf(to) && rankOf(from) != rankOf(to)) return false;
+        return countPiecesBetween(b, from, to) == 0;
     }
 
-    private boolean isValidHorseMove(ChessPiece piece, int endX, int endY) {
-        int dx = Math.abs(endX - piece.x);
-        int dy = Math.abs(endY - piece.y);
+    private boolean isValidHorseMove(Board b, int from, int to) {
+        int dx = Math.abs(fileOf(to) - fileOf(from));
+        int dy = Math.abs(rankOf(to) - rankOf(from));
         if (!((dx == 1 && dy == 2) || (dx == 2 && dy == 1))) return false;
 
-        int blockX = piece.x;
-        int blockY = piece.y;
+        // 马腿
+        int block = from;
         if (dx == 1) {
-            blockY += (endY > piece.y ? 1 : -1);
+            block += (to > from ? 16 : -16);
         } else {
-            blockX += (endX > piece.x ? 1 : -1);
+            block += (fileOf(to) > fileOf(from) ? 1 : -1);
         }
-        if (getPieceAt(blockX, blockY).isPresent()) return false;
-
-        return true;
+        return b.pieceAt(block) == EMPTY;
     }
 
-    private boolean isValidCannonMove(ChessPiece piece, int endX, int endY) {
-        if (piece.x != endX && piece.y != endY) return false;
-        long piecesBetween = countPiecesBetween(piece.x, piece.y, endX, endY, currentPieces);
-        if (getPieceAt(endX, endY).isPresent()) {
+    private boolean isValidCannonMove(Board b, int from, int to) {
+        if (fileOf(from) != fileOf(to) && rankOf(from) != rankOf(to)) return false;
+        int piecesBetween = countPiecesBetween(b, from, to);
+        if (b.pieceAt(to) != EMPTY) {
             return piecesBetween == 1;
         } else {
             return piecesBetween == 0;
         }
     }
 
-    private boolean isValidPawnMove(ChessPiece piece, int endX, int endY) {
-        int dx = Math.abs(endX - piece.x);
-        int dyAbs = Math.abs(endY - piece.y);
+    private boolean isValidPawnMove(int side, int from, int to) {
+        int startY = rankOf(from);
+        int endY = rankOf(to);
+        int dx = Math.abs(fileOf(to) - fileOf(from));
+        int dyAbs = Math.abs(endY - startY);
 
-        if (piece.color.equals("RED")) {
-            if (endY > piece.y) return false;
+        if (side == RED) {
+            if (endY > startY) return false;
         } else {
-            if (endY < piece.y) return false;
+            if (endY < startY) return false;
         }
 
         if (!((dx == 1 && dyAbs == 0) || (dx == 0 && dyAbs == 1))) return false;
 
-        boolean hasCrossedRiver = piece.color.equals("RED") ? piece.y <= 4 : piece.y >= 5;
+        boolean hasCrossedRiver = side == RED ? startY <= 4 : startY >= 5;
         if (!hasCrossedRiver && dx != 0) return false;
 
         return true;
     }
 
     public boolean isKingInCheck(String kingColor, ChessPiece[] pieces) {
-        Optional<ChessPiece> kingOpt = Arrays.stream(pieces)
-                .filter(p -> p != null && p.color.equals(kingColor) && (p.type.equals("将") || p.type.equals("帅")))
-                .findFirst();
-        if (kingOpt.isEmpty()) return false;
-        ChessPiece king = kingOpt.get();
-        String opponentColor = kingColor.equals("RED") ? "BLACK" : "RED";
-
-        return Arrays.stream(pieces)
-                .filter(p -> p != null && p.color.equals(opponentColor))
-                .anyMatch(opponentPiece -> {
-                    MoveRuleValidator tempValidator = new MoveRuleValidator(pieces);
-                    return tempValidator.isSimpleValidMove(opponentPiece.x, opponentPiece.y, king.x, king.y);
-                });
+        return isKingInCheck(Board.fromPieces(pieces), Board.sideOf(kingColor));
     }
 
-    private boolean isMoveCausingSelfCheck(ChessPiece pieceToMove, int endX, int endY) {
-        ChessPiece[] simulatedPieces = Arrays.stream(currentPieces)
-                .filter(p -> p.x != endX || p.y != endY)
-                .map(ChessPiece::new)
-                .toArray(ChessPiece[]::new);
-
-        ChessPiece simulatedMovingPiece = Arrays.stream(simulatedPieces)
-                .filter(p -> p.x == pieceToMove.x && p.y == pieceToMove.y)
-                .findFirst().orElse(null);
-        if (simulatedMovingPiece == null) return true;
-
-        simulatedMovingPiece.x = endX;
-        simulatedMovingPiece.y = endY;
-
-        // 检查移动后是否被将军
-        if (isKingInCheck(pieceToMove.color, simulatedPieces)) {
-            return true;
-        }
+    /**
+     * 在当前棋盘上检查指定颜色的将/帅是否被将军
+     */
+    public boolean isKingInCheck(String kingColor) {
+        return isKingInCheck(board, Board.sideOf(kingColor));
+    }
 
-        // 检查移动后是否将帅对脸
-        Optional<ChessPiece> myKingOpt = Arrays.stream(simulatedPieces)
-                .filter(p -> p != null && p.color.equals(pieceToMove.color) && (p.type.equals("将") || p.type.equals("帅")))
-                .findFirst();
-        Optional<ChessPiece> opponentKingOpt = Arrays.stream(simulatedPieces)
-                .filter(p -> p != null && !p.color.equals(pieceToMove.color) && (p.type.equals("将") || p.type.equals("帅")))
-                .findFirst();
-
-        if (myKingOpt.isPresent() && opponentKingOpt.isPresent()) {
-            ChessPiece myKing = myKingOpt.get();
-            ChessPiece opponentKing = opponentKingOpt.get();
-            if (myKing.x == opponentKing.x) {
-                if (countPiecesBetween(myKing.x, myKing.y, opponentKing.x, opponentKing.y, simulatedPieces) == 0) {
-                    return true; // 将帅对脸，非法移动
-                }
-            }
-        }
+    // 从将/帅向外反查攻击者，见 MoveGenerator.isInCheck
+    private boolean isKingInCheck(Board b, int side) {
+        return MoveGenerator.isInCheck(b, side);
+    }
 
-        return false;
+    // 在棋盘上试走一步后检查是否被将军或将帅对脸，检查完立即撤销
+    private boolean isMoveCausingSelfCheck(int from, int to) {
+        return !MoveGenerator.isLegal(board, from, to);
     }
 
-    private boolean isSimpleValidMove(int startX, int startY, int endX, int endY) {
-        Optional<ChessPiece> movingPieceOpt = getPieceAt(startX, startY);
-        if (movingPieceOpt.isEmpty()) return false;
-        ChessPiece movingPiece = movingPieceOpt.get();
+    private boolean isSimpleValidMove(Board b, int from, int to) {
+        int movingPiece = b.pieceAt(from);
+        if (movingPiece == EMPTY) return false;
+        int side = sideOf(movingPiece);
 
-        Optional<ChessPiece> targetPieceOpt = getPieceAt(endX, endY);
-        if (targetPieceOpt.isPresent() && targetPieceOpt.get().color.equals(movingPiece.color)) {
+        int targetPiece = b.pieceAt(to);
+        if (targetPiece != EMPTY && sideOf(targetPiece) == side) {
             return false;
         }
 
-        return switch (movingPiece.type) {
-            case "将", "帅" -> isValidGeneralMove(movingPiece, endX, endY);
-            case "士", "仕" -> isValidAdvisorMove(movingPiece, endX, endY);
-            case "象", "相" -> isValidElephantMove(movingPiece, endX, endY);
-            case "车", "車" -> isValidChariotMove(movingPiece, endX, endY);
-            case "马", "馬" -> isValidHorseMove(movingPiece, endX, endY);
-            case "炮", "砲" -> isValidCannonMove(movingPiece, endX, endY);
-            case "兵", "卒" -> isValidPawnMove(movingPiece, endX, endY);
+        return switch (typeOf(movingPiece)) {
+            case KING -> isValidGeneralMove(side, from, to);
+            case ADVISOR -> isValidAdvisorMove(side, from, to);
+            case BISHOP -> isValidElephantMove(b, side, from, to);
+            case ROOK -> isValidChariotMove(b, from, to);
+            case KNIGHT -> isValidHorseMove(b, from, to);
+            case CANNON -> isValidCannonMove(b, from, to);
+            case PAWN -> isValidPawnMove(side, from, to);
             default -> false;
         };
     }
@@ -327,7 +327,7 @@ public class ReplayGameController {
             gc.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
 
             // 绘制棋子边框
-            Color pieceColor = p.color.equals("RED") ? RED_COLOR : Color.BLACK;
+            Color pieceColor = p.isRed() ? RED_COLOR : Color.BLACK;
             gc.setStroke(pieceColor);
             gc.setLineWidth(2);
             gc.strokeOval(x - radius, y - radius, 2 * radius, 2 * radius);
@@ -338,8 +338,8 @@ public class ReplayGameController {
 
             // 绘制棋子文字
             gc.setFill(pieceColor);
-            gc.setFont(p.color.equals("RED") ? redPieceFont : blackPieceFont);
-            gc.fillText(p.type, x, y);
+            gc.setFont(p.isRed() ? redPieceFont : blackPieceFont);
+            gc.fillText(p.glyph(), x, y);
         }
     }
 
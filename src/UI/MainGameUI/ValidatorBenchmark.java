@@ -0,0 +1,144 @@
+package UI.MainGameUI;
+
+import UI.AI.Board;
+import UI.AI.Move;
+import UI.AI.MoveGenerator;
+import UI.AI.Perft;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 走法校验器的基准测试
+ * 在 Perft 测试局面及其前若干步可达的局面上，对每个棋子尝试走到棋盘上的每个格子（与选中棋子后计算可走位置相同），
+ * 分别用旧的 ChessPiece 数组校验器（LegacyMoveRuleValidator）和基于 Board 的 MoveRuleValidator 调用 checkMove，
+ * 检查两者结果完全一致，并输出各自每秒的调用次数。
+ *
+ * 用法：
+ * java UI.MainGameUI.ValidatorBenchmark [depth] [rounds]     depth 默认 1（测试局面及其后一步），rounds 默认 5
+ */
+public class ValidatorBenchmark {
+
+    private ValidatorBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Board> boards = new ArrayList<>();
+        for (String fen : Perft.TEST_FENS) {
+            collect(Board.fromFen(fen), depth, boards);
+        }
+        List<ChessPiece[]> pieces = new ArrayList<>(boards.size());
+        for (Board board : boards) {
+            pieces.add(toPieces(board));
+        }
+
+        // 先比较结果，同时让两个实现都经过 JIT 预热
+        long calls = 0;
+        long mismatches = 0;
+        for (int i = 0; i < boards.size(); i++) {
+            LegacyMoveRuleValidator legacy = new LegacyMoveRuleValidator(pieces.get(i));
+            MoveRuleValidator validator = new MoveRuleValidator(boards.get(i));
+            for (ChessPiece piece : pieces.get(i)) {
+                for (int y = 0; y < Board.ROWS; y++) {
+                    for (int x = 0; x < Board.COLS; x++) {
+                        MoveRuleValidator.MoveValidationResult expected = legacy.checkMove(piece.x, piece.y, x, y);
+                        MoveRuleValidator.MoveValidationResult actual = validator.checkMove(piece.x, piece.y, x, y);
+                        calls++;
+                        if (expected != actual) {
+                            if (mismatches < 10) {
+                                System.out.println("  不一致: " + boards.get(i).toFen() + " " + piece + " -> (" + x + "," + y + ") "
+                                        + "旧 " + expected + ", 新 " + actual);
+                            }
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(boards.size() + " 个局面, 每轮 " + calls + " 次 checkMove");
+
+        long legacyNanos = Long.MAX_VALUE;
+        long boardNanos = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            legacyNanos = Math.min(legacyNanos, timeLegacy(pieces));
+            boardNanos = Math.min(boardNanos, timeBoard(boards));
+        }
+        report("ChessPiece[] 校验器", calls, legacyNanos);
+        report("Board 校验器", calls, boardNanos);
+        System.out.printf("  加速比: %.1f 倍%n", (double) legacyNanos / boardNanos);
+        System.out.println(mismatches == 0 ? "校验结果全部一致" : "校验结果存在 " + mismatches + " 处不一致");
+    }
+
+    // 收集从 board 出发走 depth 步以内（只走合法走法）到达的所有局面，CheckDetectionBenchmark 也使用
+    static void collect(Board board, int depth, List<Board> boards) {
+        boards.add(new Board(board));
+        if (depth == 0) return;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        for (int i = 0; i < count; i++) {
+            int from = Move.from(moves[i]);
+            int to = Move.to(moves[i]);
+            if (!MoveGenerator.isLegal(board, from, to)) continue;
+            board.doMove(from, to);
+            collect(board, depth - 1, boards);
+            board.undoMove();
+        }
+    }
+
+    static ChessPiece[] toPieces(Board board) {
+        List<ChessPiece> pieces = new ArrayList<>();
+        for (int y = 0; y < Board.ROWS; y++) {
+            for (int x = 0; x < Board.COLS; x++) {
+                ChessPiece piece = board.toChessPiece(Board.square(x, y));
+                if (piece != null) pieces.add(piece);
+            }
+        }
+        return pieces.toArray(new ChessPiece[0]);
+    }
+
+    // 返回值计入合法走法数，避免循环被当作无用代码优化掉
+    private static long timeLegacy(List<ChessPiece[]> pieces) {
+        long start = System.nanoTime();
+        long valid = 0;
+        for (ChessPiece[] position : pieces) {
+            LegacyMoveRuleValidator validator = new LegacyMoveRuleValidator(position);
+            for (ChessPiece piece : position) {
+                for (int y = 0; y < Board.ROWS; y++) {
+                    for (int x = 0; x < Board.COLS; x++) {
+                        if (validator.isValidMove(piece.x, piece.y, x, y)) valid++;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return valid < 0 ? 0 : elapsed;
+    }
+
+    private static long timeBoard(List<Board> boards) {
+        long start = System.nanoTime();
+        long valid = 0;
+        for (Board board : boards) {
+            MoveRuleValidator validator = new MoveRuleValidator(board);
+            for (int sq = 0; sq < 256; sq++) {
+                if (!Board.inBoard(sq) || board.pieceAt(sq) == Board.EMPTY) continue;
+                int fromX = Board.fileOf(sq);
+                int fromY = Board.rankOf(sq);
+                for (int y = 0; y < Board.ROWS; y++) {
+                    for (int x = 0; x < Board.COLS; x++) {
+                        if (validator.isValidMove(fromX, fromY, x, y)) valid++;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return valid < 0 ? 0 : elapsed;
+    }
+
+    static void report(String name, long calls, long elapsedNanos) {
+        long perSecond = elapsedNanos > 0 ? calls * 1_000_000_000L / elapsedNanos : 0;
+        System.out.println("  " + name + ": " + elapsedNanos / 1_000_000 + "ms, " + perSecond + " 次/秒");
+    }
+}
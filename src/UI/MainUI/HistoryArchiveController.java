@@ -5,7 +5,6 @@ import UI.MainGameUI.MainGameLauncher;
 import UI.Models.AudioModel;
 import UI.Models.GameArchiveManager;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
@@ -327,7 +326,7 @@ public class HistoryArchiveController {
             gc.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
 
             // 绘制棋子边框
-            Color pieceColor = p.color.equals("RED") ? RED_COLOR : Color.BLACK;
+            Color pieceColor = p.isRed() ? RED_COLOR : Color.BLACK;
             gc.setStroke(pieceColor);
             gc.setLineWidth(2);
             gc.strokeOval(x - radius, y - radius, 2 * radius, 2 * radius);
@@ -338,8 +337,8 @@ public class HistoryArchiveController {
 
             // 绘制棋子文字
             gc.setFill(pieceColor);
-            gc.setFont(p.color.equals("RED") ? redPieceFont : blackPieceFont);
-            gc.fillText(p.type, x, y);
+            gc.setFont(p.isRed() ? redPieceFont : blackPieceFont);
+            gc.fillText(p.glyph(), x, y);
         }
     }
 
@@ -491,9 +490,8 @@ public class HistoryArchiveController {
             
             alert.showAndWait().ifPresent(result -> {
                 if (result == buttonTypeYes) {
-                    // 执行删除操作
-                    File saveFile = new File(GameArchiveManager.getUserSaveDir(currentUserName), finalSelectedFileInfo.getFileName());
-                    if (saveFile.delete()) {
+                    // 执行删除操作（同时从存档索引中移除）
+                    if (archiveManager.deleteGame(finalSelectedFileInfo.getFileName())) {
                         // 从列表中移除
                         saveFilesListView.getItems().remove(finalSelectedDisplayName);
                         saveFiles.remove(finalSelectedFileInfo);
@@ -540,7 +538,7 @@ public class HistoryArchiveController {
 
         if (selectedFile != null) {
             try (BufferedReader reader = new BufferedReader(new FileReader(selectedFile))) {
-                Gson gson = new Gson();
+                Gson gson = GameArchiveManager.createGson(false);
                 GameArchiveManager.GameArchiveData importedData = gson.fromJson(reader, GameArchiveManager.GameArchiveData.class);
 
                 if (importedData != null && importedData.pieces != null && importedData.currentPlayerColor != null) {
@@ -613,7 +611,7 @@ public class HistoryArchiveController {
 
             if (selectedFile != null) {
                 // 2. 转换为JSON并写入文件
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
+                Gson gson = GameArchiveManager.createGson(true);
                 String jsonText = gson.toJson(archiveData);
 
                 try (FileWriter writer = new FileWriter(selectedFile)) {
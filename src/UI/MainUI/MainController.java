@@ -2,6 +2,7 @@ package UI.MainUI;
 
 import UI.MainGameUI.MainGameLauncher;
 import UI.Models.AudioModel;
+import UI.Models.ArchiveKeyService;
 import UI.loginUI.LoginLauncher;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -149,6 +150,8 @@ public class MainController {
             sessionIdentifier = null;
             lastLoginTime = null;
             passwordHashForEncryption = null;
+            // 清除缓存的存档密钥
+            ArchiveKeyService.clear();
 
             // 清除自动登录状态
             LoginState.clearState();
@@ -0,0 +1,190 @@
+package UI.Models;
+
+import UI.AI.Board;
+import UI.MainGameUI.ChessPiece;
+import UI.MainGameUI.GameMove;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 二进制存档格式（明文部分）
+ * 依次为：
+ * 起始局面的 FEN（varint 长度 + UTF-8），当前走子方（1 字节，0 红 1 黑），最后一步的时间戳（varint），
+ * 走法数（varint），每步 2 字节的走法（起点格子编号 << 7 | 终点格子编号，格子编号 = y * 9 + x），
+ * 以及每步时间戳与上一步之差（zigzag varint，第一步与 0 相减）。
+ * 棋子名称、被吃的棋子和当前局面都不保存，读取时从起始局面按走法重放得到。
+ *
+ * 文件中明文由 GameArchiveManager 用 AES-GCM 加密，整个文件为：
+ * 魔数 "XQAR"、版本号、12 字节 IV、密文（含认证标签），不再做 Base64 编码。
+ */
+public class ArchiveCodec {
+
+    public static final byte[] MAGIC = {'X', 'Q', 'A', 'R'};
+    public static final int VERSION = 1;
+    // 魔数和版本号，同时作为附加认证数据
+    public static final int HEADER_SIZE = MAGIC.length + 1;
+
+    private static final int SQUARES = Board.COLS * Board.ROWS;
+
+    private ArchiveCodec() {
+    }
+
+    /**
+     * 文件内容是否为二进制格式（否则为旧的 Base64 文本格式）
+     */
+    public static boolean isBinary(byte[] content) {
+        if (content.length < HEADER_SIZE) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (content[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 编码存档数据
+     * 从当前局面按走法倒推出起始局面；走法与局面对不上（例如手工修改过的旧存档）时返回 null，由调用方改用 JSON 格式。
+     */
+    public static byte[] encode(GameArchiveManager.GameArchiveData data) {
+        if (data.pieces == null || data.currentPlayerColor == null) return null;
+        List<GameMove> moves = data.moves != null ? data.moves : List.of();
+
+        int[] cells = new int[SQUARES];
+        for (ChessPiece piece : data.pieces) {
+            if (piece == null) continue;
+            int cell = cellOf(piece.x, piece.y);
+            if (cell < 0 || cells[cell] != Board.EMPTY || piece.code == Board.EMPTY) return null;
+            cells[cell] = piece.code;
+        }
+        // 倒着撤销每一步
+        for (int i = moves.size() - 1; i >= 0; i--) {
+            GameMove move = moves.get(i);
+            int from = cellOf(move.fromX, move.fromY);
+            int to = cellOf(move.toX, move.toY);
+            if (from < 0 || to < 0 || from == to || cells[to] == Board.EMPTY || cells[from] != Board.EMPTY) return null;
+            int expected = move.pieceName != null ? Board.pieceCode(move.pieceName, move.pieceColor) : Board.EMPTY;
+            if (expected != Board.EMPTY && expected != cells[to]) return null;
+            cells[from] = cells[to];
+            cells[to] = move.capturedPiece != null ? move.capturedPiece.code : Board.EMPTY;
+        }
+
+        Board start = new Board();
+        for (int cell = 0; cell < SQUARES; cell++) {
+            if (cells[cell] != Board.EMPTY) {
+                start.addPiece(Board.square(cell % Board.COLS, cell / Board.COLS), cells[cell]);
+            }
+        }
+        String startColor = moves.isEmpty() ? data.currentPlayerColor : moves.get(0).pieceColor;
+        start.setSideToMove(Board.sideOf(startColor));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + moves.size() * 4);
+        byte[] fen = start.toFen().getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, fen.length);
+        out.write(fen, 0, fen.length);
+        out.write(Board.sideOf(data.currentPlayerColor));
+        writeVarint(out, data.lastMoveTimestamp);
+        writeVarint(out, moves.size());
+        for (GameMove move : moves) {
+            int packed = cellOf(move.fromX, move.fromY) << 7 | cellOf(move.toX, move.toY);
+            out.write(packed >>> 8);
+            out.write(packed & 0xff);
+        }
+        long previous = 0;
+        for (GameMove move : moves) {
+            long delta = move.timestamp - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 63));
+            previous = move.timestamp;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码存档数据
+     *
+     * @throws IOException 数据不完整或走法与局面对不上
+     */
+    public static GameArchiveManager.GameArchiveData decode(byte[] plaintext) throws IOException {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(plaintext);
+            byte[] fen = new byte[(int) readVarint(in)];
+            in.get(fen);
+            Board start = Board.fromFen(new String(fen, StandardCharsets.UTF_8));
+            String currentColor = Board.colorOf(in.get() == 0 ? Board.RED : Board.BLACK);
+            long lastMoveTimestamp = readVarint(in);
+            int count = (int) readVarint(in);
+            if (count < 0 || count * 2L > in.remaining()) throw new IOException("走法数错误: " + count);
+
+            int[] cells = new int[SQUARES];
+            for (int cell = 0; cell < SQUARES; cell++) {
+                cells[cell] = start.pieceAt(cell % Board.COLS, cell / Board.COLS);
+            }
+            int[] packed = new int[count];
+            for (int i = 0; i < count; i++) {
+                packed[i] = in.getShort() & 0xffff;
+            }
+
+            List<GameMove> moves = new ArrayList<>(count);
+            long timestamp = 0;
+            for (int i = 0; i < count; i++) {
+                long zigzag = readVarint(in);
+                timestamp += (zigzag >>> 1) ^ -(zigzag & 1);
+                int from = packed[i] >>> 7;
+                int to = packed[i] & 0x7f;
+                if (from >= SQUARES || to >= SQUARES || cells[from] == Board.EMPTY) {
+                    throw new IOException("第 " + (i + 1) + " 步走法与局面不符");
+                }
+                int piece = cells[from];
+                int captured = cells[to];
+                int toX = to % Board.COLS;
+                int toY = to / Board.COLS;
+                moves.add(new GameMove(from % Board.COLS, from / Board.COLS, toX, toY, timestamp,
+                        Board.pieceName(piece), Board.colorOf(Board.sideOf(piece)),
+                        captured != Board.EMPTY ? new ChessPiece(captured, toX, toY) : null));
+                cells[to] = piece;
+                cells[from] = Board.EMPTY;
+            }
+
+            List<ChessPiece> pieces = new ArrayList<>();
+            for (int cell = 0; cell < SQUARES; cell++) {
+                if (cells[cell] != Board.EMPTY) {
+                    pieces.add(new ChessPiece(cells[cell], cell % Board.COLS, cell / Board.COLS));
+                }
+            }
+            GameArchiveManager.GameArchiveData data =
+                    new GameArchiveManager.GameArchiveData(pieces.toArray(new ChessPiece[0]), moves, currentColor);
+            data.lastMoveTimestamp = lastMoveTimestamp;
+            return data;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("二进制存档格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    private static int cellOf(int x, int y) {
+        if (x < 0 || x >= Board.COLS || y < 0 || y >= Board.ROWS) return -1;
+        return y * Board.COLS + x;
+    }
+
+    // 无符号 LEB128 编码
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xff;
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("varint 过长");
+    }
+}
@@ -0,0 +1,154 @@
+package UI.Models;
+
+import UI.AI.Board;
+import UI.AI.Move;
+import UI.AI.MoveGenerator;
+import UI.MainGameUI.ChessPiece;
+import UI.MainGameUI.GameMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 存档格式的大小和读写耗时对比
+ * 从开局按固定随机种子走出不同长度的对局，分别保存为二进制格式（ArchiveCodec + AES-GCM）
+ * 和旧的 JSON 格式（Gson + AES-ECB + Base64），输出两者的文件大小、保存和读取的平均耗时，并检查读回的数据与原对局一致。
+ * 与 GameArchiveManager 使用相同的序列化代码，只在内存中进行，不读写存档目录。
+ *
+ * 用法：
+ * java UI.Models.ArchiveFormatBenchmark [iterations]     iterations 默认 2000
+ */
+public class ArchiveFormatBenchmark {
+
+    private static final int[] GAME_LENGTHS = {0, 40, 100, 200, 400};
+
+    private ArchiveFormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        GameArchiveManager manager = new GameArchiveManager("benchmark", "benchmark");
+        String previousFormat = System.getProperty(GameArchiveManager.FORMAT_PROPERTY);
+
+        boolean passed = true;
+        try {
+            for (int length : GAME_LENGTHS) {
+                GameArchiveManager.GameArchiveData data = playGame(length, new Random(length));
+
+                System.setProperty(GameArchiveManager.FORMAT_PROPERTY, "json");
+                byte[] json = manager.serialize(data);
+                long jsonSave = timeSave(manager, data, iterations);
+                System.clearProperty(GameArchiveManager.FORMAT_PROPERTY);
+                byte[] binary = manager.serialize(data);
+                long binarySave = timeSave(manager, data, iterations);
+                if (ArchiveCodec.isBinary(json) || !ArchiveCodec.isBinary(binary)) {
+                    throw new IllegalStateException("存档格式选择错误");
+                }
+
+                long jsonLoad = timeLoad(manager, json, iterations);
+                long binaryLoad = timeLoad(manager, binary, iterations);
+                boolean same = sameGame(data, manager.deserialize(json)) && sameGame(data, manager.deserialize(binary));
+                passed &= same;
+
+                System.out.println(data.moves.size() + " 步:");
+                System.out.printf("  JSON:   %7d 字节, 保存 %7.1fus, 读取 %7.1fus%n", json.length, jsonSave / 1000.0, jsonLoad / 1000.0);
+                System.out.printf("  二进制: %7d 字节, 保存 %7.1fus, 读取 %7.1fus%n", binary.length, binarySave / 1000.0, binaryLoad / 1000.0);
+                System.out.printf("  大小 %.1f%%, 读取加速 %.1f 倍%s%n", binary.length * 100.0 / json.length,
+                        (double) jsonLoad / binaryLoad, same ? "" : ", 错误: 读回的数据与原对局不一致");
+            }
+        } finally {
+            if (previousFormat != null) {
+                System.setProperty(GameArchiveManager.FORMAT_PROPERTY, previousFormat);
+            } else {
+                System.clearProperty(GameArchiveManager.FORMAT_PROPERTY);
+            }
+        }
+        System.out.println(passed ? "两种格式读回的数据全部一致" : "存档格式存在错误");
+    }
+
+    // 从开局随机走 length 步合法走法（提前被将死或困毙时停止），时间戳间隔 1～30 秒
+    private static GameArchiveManager.GameArchiveData playGame(int length, Random random) {
+        Board board = Board.fromFen(Board.START_FEN);
+        List<GameMove> moves = new ArrayList<>();
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        long timestamp = 1_700_000_000_000L;
+        while (moves.size() < length) {
+            List<Integer> legal = new ArrayList<>();
+            int count = MoveGenerator.generateMoves(board, buffer);
+            for (int i = 0; i < count; i++) {
+                if (MoveGenerator.isLegal(board, Move.from(buffer[i]), Move.to(buffer[i]))) legal.add(buffer[i]);
+            }
+            if (legal.isEmpty()) break;
+
+            int move = legal.get(random.nextInt(legal.size()));
+            int from = Move.from(move);
+            int to = Move.to(move);
+            int piece = board.pieceAt(from);
+            timestamp += 1000 + random.nextInt(29_000);
+            moves.add(new GameMove(Board.fileOf(from), Board.rankOf(from), Board.fileOf(to), Board.rankOf(to), timestamp,
+                    Board.pieceName(piece), Board.colorOf(Board.sideOf(piece)), board.toChessPiece(to)));
+            board.doMove(from, to);
+        }
+
+        List<ChessPiece> pieces = new ArrayList<>();
+        for (int y = 0; y < Board.ROWS; y++) {
+            for (int x = 0; x < Board.COLS; x++) {
+                ChessPiece piece = board.toChessPiece(Board.square(x, y));
+                if (piece != null) pieces.add(piece);
+            }
+        }
+        return new GameArchiveManager.GameArchiveData(pieces.toArray(new ChessPiece[0]), moves,
+                Board.colorOf(board.sideToMove()));
+    }
+
+    // 返回每次保存的平均纳秒数；先运行同样的次数预热
+    private static long timeSave(GameArchiveManager manager, GameArchiveManager.GameArchiveData data, int iterations) throws Exception {
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            bytes += manager.serialize(data).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += manager.serialize(data).length;
+        }
+        long elapsed = (System.nanoTime() - start) / iterations;
+        return bytes < 0 ? 0 : elapsed;
+    }
+
+    private static long timeLoad(GameArchiveManager manager, byte[] content, int iterations) throws Exception {
+        long moves = 0;
+        for (int i = 0; i < iterations; i++) {
+            moves += manager.deserialize(content).moves.size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            moves += manager.deserialize(content).moves.size();
+        }
+        long elapsed = (System.nanoTime() - start) / iterations;
+        return moves < 0 ? 0 : elapsed;
+    }
+
+    private static boolean sameGame(GameArchiveManager.GameArchiveData expected, GameArchiveManager.GameArchiveData actual) {
+        if (!expected.currentPlayerColor.equals(actual.currentPlayerColor)
+                || expected.lastMoveTimestamp != actual.lastMoveTimestamp
+                || expected.pieces.length != actual.pieces.length
+                || expected.moves.size() != actual.moves.size()) {
+            return false;
+        }
+        if (!Board.fromPieces(expected.pieces).toFen().equals(Board.fromPieces(actual.pieces).toFen())) return false;
+        for (int i = 0; i < expected.moves.size(); i++) {
+            GameMove a = expected.moves.get(i);
+            GameMove b = actual.moves.get(i);
+            ChessPiece capturedA = a.capturedPiece;
+            ChessPiece capturedB = b.capturedPiece;
+            if (a.fromX != b.fromX || a.fromY != b.fromY || a.toX != b.toX || a.toY != b.toY || a.timestamp != b.timestamp
+                    || !a.pieceName.equals(b.pieceName) || !a.pieceColor.equals(b.pieceColor)
+                    || (capturedA == null) != (capturedB == null)
+                    || (capturedA != null && capturedA.code != capturedB.code)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
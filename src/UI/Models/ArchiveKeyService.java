@@ -0,0 +1,73 @@
+package UI.Models;
+
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 存档密钥服务
+ * 存档密钥由密码哈希经 PBKDF2（65536 次迭代）派生，每次派生要几十毫秒。
+ * 每个用户在本次运行中只派生一次，之后的保存、读取、列出存档都复用内存中的密钥，登出时清除。
+ * 缓存中只保存密码哈希的 SHA-256 指纹用于比较，密码哈希变化（例如修改密码）后重新派生。
+ */
+public class ArchiveKeyService {
+
+    private static final String PBE_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String ENCRYPT_ALGORITHM = "AES";
+    private static final byte[] SALT = "ChineseChessSaltForArchive".getBytes(StandardCharsets.UTF_8);
+    private static final int ITERATIONS = 65536;
+    private static final int KEY_BITS = 128;
+
+    // 用户名 -> 密钥
+    private static final Map<String, CachedKey> keys = new HashMap<>();
+
+    private record CachedKey(byte[] fingerprint, SecretKey key) {
+    }
+
+    private ArchiveKeyService() {
+    }
+
+    /**
+     * 取得用户的存档密钥，本次运行中第一次调用（或密码哈希变化）时派生
+     *
+     * @param username 用户名
+     * @param encryptionKeyBasis 密码哈希
+     */
+    public static synchronized SecretKey getKey(String username, String encryptionKeyBasis) throws GeneralSecurityException {
+        byte[] fingerprint = MessageDigest.getInstance("SHA-256")
+                .digest(encryptionKeyBasis.getBytes(StandardCharsets.UTF_8));
+        CachedKey cached = keys.get(username);
+        if (cached != null && MessageDigest.isEqual(cached.fingerprint(), fingerprint)) {
+            return cached.key();
+        }
+
+        long startTime = System.currentTimeMillis();
+        SecretKey key = deriveKey(encryptionKeyBasis);
+        keys.put(username, new CachedKey(fingerprint, key));
+        System.out.println("存档密钥已派生: " + username + ", 耗时 " + (System.currentTimeMillis() - startTime) + "ms");
+        return key;
+    }
+
+    /**
+     * 清除所有缓存的密钥（登出时调用）
+     */
+    public static synchronized void clear() {
+        keys.clear();
+    }
+
+    private static SecretKey deriveKey(String encryptionKeyBasis) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(encryptionKeyBasis.toCharArray(), SALT, ITERATIONS, KEY_BITS);
+        try {
+            byte[] keyBytes = SecretKeyFactory.getInstance(PBE_ALGORITHM).generateSecret(spec).getEncoded();
+            return new SecretKeySpec(keyBytes, ENCRYPT_ALGORITHM);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
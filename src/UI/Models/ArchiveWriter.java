@@ -0,0 +1,174 @@
+package UI.Models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 存档写入线程（全局只有一个）
+ * 存档的加密和文件读写都在这个后台线程上按提交顺序依次执行，不占用 JavaFX 线程。
+ * 按键提交的写入会合并：同一个键还在排队（尚未开始）时，新的写入替换旧的，只写最新的状态。
+ * 替换后的写入占用被替换写入的排队位置，并接管它的回调，所以同一个键的写入不会乱序执行，
+ * 同一局游戏的自动保存和手动保存应使用同一个键。
+ */
+public class ArchiveWriter {
+
+    // 写入状态
+    public enum Status {
+        SAVING, SAVED, FAILED
+    }
+
+    private static ArchiveWriter instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Archive-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 按键排队、尚未开始的写入
+    private final Map<String, Pending> pending = new HashMap<>();
+    // 排队和正在执行的写入数
+    private int outstanding;
+    // 被合并掉的写入数
+    private long coalesced;
+    // 状态变化时在写入线程上回调
+    private volatile Consumer<Status> statusListener;
+
+    // 一次写入，返回是否成功
+    @FunctionalInterface
+    public interface Write {
+        boolean run() throws Exception;
+    }
+
+    // 排队中的写入，以及被它合并掉的写入的回调
+    private static final class Pending {
+        Write write;
+        final List<Consumer<Boolean>> callbacks = new ArrayList<>();
+    }
+
+    private ArchiveWriter() {}
+
+    public static synchronized ArchiveWriter getInstance() {
+        if (instance == null) {
+            instance = new ArchiveWriter();
+        }
+        return instance;
+    }
+
+    /**
+     * 提交可以合并的写入：同一个键之前的写入还没开始时被这次替换
+     *
+     * @param key 合并的键，例如存档的标识
+     * @param write 写入操作，必须只使用提交时复制好的数据
+     */
+    public void submit(String key, Write write) {
+        submit(key, write, null);
+    }
+
+    /**
+     * 提交可以合并的写入，完成后在写入线程上回调结果
+     * 被之后同一个键的写入替换时，回调得到替换它的写入的结果
+     *
+     * @param callback 写入结果，可以为 null
+     */
+    public void submit(String key, Write write, Consumer<Boolean> callback) {
+        synchronized (this) {
+            Pending queued = pending.get(key);
+            boolean merged = queued != null;
+            if (!merged) {
+                queued = new Pending();
+                pending.put(key, queued);
+                outstanding++;
+            } else {
+                coalesced++;
+            }
+            queued.write = write;
+            if (callback != null) {
+                queued.callbacks.add(callback);
+            }
+            if (merged) return;
+        }
+        setStatus(Status.SAVING);
+        executor.execute(() -> {
+            Pending latest;
+            synchronized (this) {
+                latest = pending.remove(key);
+            }
+            execute(latest.write, latest.callbacks);
+        });
+    }
+
+    /**
+     * 提交不合并的写入，完成后在写入线程上回调结果
+     *
+     * @param callback 写入结果，可以为 null
+     */
+    public void submit(Write write, Consumer<Boolean> callback) {
+        synchronized (this) {
+            outstanding++;
+        }
+        setStatus(Status.SAVING);
+        executor.execute(() -> execute(write, callback != null ? List.of(callback) : List.of()));
+    }
+
+    /**
+     * 等待之前提交的所有写入完成（离开对局、退出前调用）
+     *
+     * @param timeoutMs 最长等待时间
+     * @return 是否在超时前全部完成
+     */
+    public boolean flush(long timeoutMs) {
+        try {
+            executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            System.err.println("等待存档写入完成失败: " + e);
+            return false;
+        }
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * 设置状态监听器，传入 null 时取消
+     */
+    public void setStatusListener(Consumer<Status> statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    private void execute(Write write, List<Consumer<Boolean>> callbacks) {
+        boolean success;
+        try {
+            success = write.run();
+        } catch (Exception e) {
+            System.err.println("存档写入失败: " + e.getMessage());
+            success = false;
+        }
+        boolean idle;
+        synchronized (this) {
+            idle = --outstanding == 0;
+        }
+        for (Consumer<Boolean> callback : callbacks) {
+            callback.accept(success);
+        }
+        if (!success) {
+            setStatus(Status.FAILED);
+        } else if (idle) {
+            setStatus(Status.SAVED);
+        }
+    }
+
+    private void setStatus(Status status) {
+        Consumer<Status> listener = statusListener;
+        if (listener != null) {
+            listener.accept(status);
+        }
+    }
+}
@@ -2,18 +2,27 @@ package UI.Models;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import UI.AI.Board;
+import UI.AI.Move;
+import UI.AI.MoveGenerator;
 import UI.MainGameUI.ChessPiece;
 import UI.MainGameUI.GameMove;
 
 import javax.crypto.Cipher;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.Key;
-import java.security.spec.KeySpec;
+import java.security.SecureRandom;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,10 +32,36 @@ import static UI.Models.GetAppPath.getAppPath;
 public class GameArchiveManager {
 
     // 加密常量
-    private static final String ENCRYPT_ALGORITHM = "AES";
-    private static final String PBE_ALGORITHM = "PBKDF2WithHmacSHA256";
     private static final String CIPHER_TRANSFORMATION = "AES/ECB/PKCS5Padding";
-    private static final byte[] SALT = "ChineseChessSaltForArchive".getBytes(StandardCharsets.UTF_8);
+
+    // 二进制存档（见 ArchiveCodec）使用 AES-GCM，文件头作为附加认证数据
+    private static final String BINARY_CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_SIZE = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom random = new SecureRandom();
+
+    // 存档写入格式：默认写二进制格式，设为 "json" 时仍写旧的 Base64 JSON 格式；两种格式都能读取。
+    // 旧格式的存档在读取时转换为二进制格式（转换后旧版本程序无法读取）
+    public static final String FORMAT_PROPERTY = "xiangqi.archive.format";
+
+    // 存档索引：每个用户的存档目录下一个加密的索引文件，记录各存档的元数据，列出存档时不必逐个解密
+    private static final String INDEX_FILE_NAME = "index.dat";
+    private static final int INDEX_VERSION = 1;
+    // 同一进程内对索引的读-改-写互斥
+    private static final Object INDEX_LOCK = new Object();
+
+    // 自动保存的走法日志：存档 X.json 旁边的 X.journal，每次自动保存只追加新走法的记录（见 MoveJournal），
+    // 记录数达到上限、悔棋退回到快照之前或手动保存时，把日志压缩进完整的存档快照
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int JOURNAL_COMPACT_RECORDS = 64;
+    // 本次运行中各存档（按绝对路径）的快照和日志状态，写入快照时建立
+    private static final Map<String, JournalState> journals = new HashMap<>();
+
+    // 存档结果
+    public static final String RESULT_ONGOING = "未结束";
+    public static final String RESULT_RED_WIN = "红胜";
+    public static final String RESULT_BLACK_WIN = "黑胜";
+    public static final String RESULT_DRAW = "和棋";
 
     private final String username;
     private final String encryptionKeyBasis;
@@ -36,11 +71,9 @@ public class GameArchiveManager {
         this.encryptionKeyBasis = encryptionKeyBasis;
     }
 
+    // 密钥由 ArchiveKeyService 在本次运行中派生一次后缓存
     private Key deriveKey() throws Exception {
-        KeySpec spec = new PBEKeySpec(encryptionKeyBasis.toCharArray(), SALT, 65536, 128);
-        SecretKeyFactory factory = SecretKeyFactory.getInstance(PBE_ALGORITHM);
-        byte[] keyBytes = factory.generateSecret(spec).getEncoded();
-        return new SecretKeySpec(keyBytes, ENCRYPT_ALGORITHM);
+        return ArchiveKeyService.getKey(username, encryptionKeyBasis);
     }
 
     private String encrypt(String plainText) throws Exception {
@@ -60,6 +93,91 @@ public class GameArchiveManager {
         return new String(decryptedBytes, StandardCharsets.UTF_8);
     }
 
+    private byte[] encryptBinary(byte[] plaintext) throws Exception {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(BINARY_CIPHER_TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, deriveKey(), new GCMParameterSpec(TAG_BITS, iv));
+        byte[] header = binaryHeader();
+        cipher.updateAAD(header);
+        byte[] ciphertext = cipher.doFinal(plaintext);
+        byte[] content = new byte[header.length + IV_SIZE + ciphertext.length];
+        System.arraycopy(header, 0, content, 0, header.length);
+        System.arraycopy(iv, 0, content, header.length, IV_SIZE);
+        System.arraycopy(ciphertext, 0, content, header.length + IV_SIZE, ciphertext.length);
+        return content;
+    }
+
+    private byte[] decryptBinary(byte[] content) throws Exception {
+        if (content[ArchiveCodec.MAGIC.length] != ArchiveCodec.VERSION) {
+            throw new IOException("不支持的存档版本: " + content[ArchiveCodec.MAGIC.length]);
+        }
+        int offset = ArchiveCodec.HEADER_SIZE;
+        Cipher cipher = Cipher.getInstance(BINARY_CIPHER_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, deriveKey(), new GCMParameterSpec(TAG_BITS, content, offset, IV_SIZE));
+        cipher.updateAAD(content, 0, offset);
+        return cipher.doFinal(content, offset + IV_SIZE, content.length - offset - IV_SIZE);
+    }
+
+    private static byte[] binaryHeader() {
+        byte[] header = Arrays.copyOf(ArchiveCodec.MAGIC, ArchiveCodec.HEADER_SIZE);
+        header[ArchiveCodec.MAGIC.length] = (byte) ArchiveCodec.VERSION;
+        return header;
+    }
+
+    private static boolean writesBinary() {
+        return !"json".equalsIgnoreCase(System.getProperty(FORMAT_PROPERTY));
+    }
+
+    // 存档数据 -> 文件内容；走法与局面对不上、无法编码为二进制时使用 JSON 格式（ArchiveFormatBenchmark 也直接调用）
+    byte[] serialize(GameArchiveData data) throws Exception {
+        byte[] binary = writesBinary() ? ArchiveCodec.encode(data) : null;
+        if (binary != null) {
+            return encryptBinary(binary);
+        }
+        return encrypt(createGson(true).toJson(data)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 文件内容 -> 存档数据，按文件头的魔数区分二进制格式和旧的 JSON 格式
+    GameArchiveData deserialize(byte[] content) throws Exception {
+        if (ArchiveCodec.isBinary(content)) {
+            return ArchiveCodec.decode(decryptBinary(content));
+        }
+        String encryptedData = new String(content, StandardCharsets.UTF_8).trim();
+        if (encryptedData.isEmpty()) {
+            throw new IOException("存档文件内容为空或格式错误");
+        }
+        return createGson(false).fromJson(decrypt(encryptedData), GameArchiveData.class);
+    }
+
+    // 写入存档快照（先写临时文件再原子替换），之后重置走法日志并更新索引
+    private boolean writeSnapshot(File saveFile, GameArchiveData archiveData) {
+        try {
+            writeAtomically(saveFile, serialize(archiveData));
+        } catch (Exception e) {
+            System.err.println("保存或加密游戏数据时出错: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+        resetJournal(saveFile, archiveData.moves);
+        updateIndex(saveFile, archiveData);
+        return true;
+    }
+
+    private static void writeAtomically(File target, byte[] content) throws IOException {
+        File tempFile = new File(target.getParentFile(), target.getName() + ".tmp");
+        try {
+            Files.write(tempFile.toPath(), content);
+            try {
+                Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            tempFile.delete();
+        }
+    }
+
     public boolean saveGame(ChessPiece[] pieces, List<GameMove> moves, String currentPlayerColor, boolean isAIGame) {
         return saveGame(pieces, moves, currentPlayerColor, isAIGame, null);
     }
@@ -69,9 +187,18 @@ public class GameArchiveManager {
     }
 
     public boolean saveGame(ChessPiece[] pieces, List<GameMove> moves, String currentPlayerColor, boolean isAIGame, String difficulty) {
+        return saveNewGame(pieces, moves, currentPlayerColor, isAIGame, difficulty) != null;
+    }
+
+    /**
+     * 保存为新的存档文件
+     *
+     * @return 新存档的文件名，保存失败时返回 null
+     */
+    public String saveNewGame(ChessPiece[] pieces, List<GameMove> moves, String currentPlayerColor, boolean isAIGame, String difficulty) {
         if (encryptionKeyBasis == null || encryptionKeyBasis.isEmpty()) {
             System.err.println("存档失败：加密密钥基础 (密码哈希) 为空。");
-            return false;
+            return null;
         }
 
         String saveDir = getUserSaveDir(username);
@@ -90,22 +217,19 @@ public class GameArchiveManager {
 
         // 创建存档数据对象
         GameArchiveData archiveData = new GameArchiveData(pieces, moves, currentPlayerColor);
-
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        String jsonText = gson.toJson(archiveData);
-
-        try (FileWriter writer = new FileWriter(saveFile)) {
-            String encryptedData = encrypt(jsonText);
-            writer.write(encryptedData);
-            return true;
-        } catch (Exception e) {
-            System.err.println("保存或加密游戏数据时出错: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        return writeSnapshot(saveFile, archiveData) ? fileName : null;
     }
 
     public GameArchiveData loadGame(String fileName) {
+        return loadGame(fileName, true);
+    }
+
+    /**
+     * 读取存档（两种格式），并重放走法日志
+     *
+     * @param migrate 旧格式的存档是否顺便转换为二进制格式；列出存档时持有索引锁，不做转换
+     */
+    private GameArchiveData loadGame(String fileName, boolean migrate) {
         if (encryptionKeyBasis == null || encryptionKeyBasis.isEmpty()) {
             System.err.println("加载失败：解密密钥基础 (密码哈希) 为空。");
             return null;
@@ -114,17 +238,16 @@ public class GameArchiveManager {
         File saveFile = new File(getUserSaveDir(username), fileName);
         if (!saveFile.exists()) return null;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(saveFile))) {
-            String encryptedData = reader.readLine();
-            if (encryptedData == null || encryptedData.isEmpty()) {
-                System.err.println("存档文件内容为空或格式错误: " + fileName);
-                return null;
+        try {
+            byte[] snapshot = Files.readAllBytes(saveFile.toPath());
+            GameArchiveData data = deserialize(snapshot);
+            if (data != null) {
+                replayJournal(saveFile, snapshot, data);
+                if (migrate && !ArchiveCodec.isBinary(snapshot)) {
+                    migrate(saveFile);
+                }
             }
-
-            String jsonText = decrypt(encryptedData);
-            Gson gson = new Gson();
-
-            return gson.fromJson(jsonText, GameArchiveData.class);
+            return data;
 
         } catch (Exception e) {
             System.err.println("加载或解密游戏数据时出错 (可能密钥错误): " + e.getMessage());
@@ -132,23 +255,40 @@ public class GameArchiveManager {
         }
     }
 
+    /**
+     * 列出存档，按最后一步的时间倒序
+     * 元数据从索引文件读取；索引不存在、无法解密，或与目录中的文件对不上（文件新增、删除、被修改）时，
+     * 只重新解密对不上的存档并写回索引。
+     */
     public List<SaveFileInfo> getSaveFiles() {
         File saveDir = new File(getUserSaveDir(username));
-        if (!saveDir.exists()) return new ArrayList<>();
-
-        File[] files = saveDir.listFiles((dir, name) -> name.endsWith(".json") && (name.startsWith("save_") || name.startsWith("人机_")));
-
+        File[] files = listArchiveFiles(saveDir);
         if (files == null) return new ArrayList<>();
 
         List<SaveFileInfo> saveFileInfos = new ArrayList<>();
-        for (File file : files) {
-            try {
-                GameArchiveData data = loadGame(file.getName());
-                if (data != null) {
-                    saveFileInfos.add(new SaveFileInfo(file.getName(), data.lastMoveTimestamp));
+        synchronized (INDEX_LOCK) {
+            Map<String, IndexEntry> index = readIndex(saveDir);
+            boolean changed = false;
+            if (index == null) {
+                System.out.println("存档索引不存在或无法读取，重新建立: " + username);
+                index = new HashMap<>();
+                changed = true;
+            }
+
+            Map<String, IndexEntry> current = new HashMap<>();
+            for (File file : files) {
+                IndexEntry entry = index.get(file.getName());
+                if (entry == null || !entry.matches(file)) {
+                    GameArchiveData data = loadGame(file.getName(), false);
+                    changed = true;
+                    if (data == null) continue; // 无法解析的文件不列出
+                    entry = IndexEntry.of(file, data);
                 }
-            } catch (Exception e) {
-                // Ignore files that can't be parsed
+                current.put(file.getName(), entry);
+                saveFileInfos.add(entry.toSaveFileInfo());
+            }
+            if (changed || current.size() != index.size()) {
+                writeIndex(saveDir, current);
             }
         }
 
@@ -157,6 +297,151 @@ public class GameArchiveManager {
         return saveFileInfos;
     }
 
+    /**
+     * 删除存档并从索引中移除
+     *
+     * @return 是否删除成功
+     */
+    public boolean deleteGame(String fileName) {
+        File saveDir = new File(getUserSaveDir(username));
+        File saveFile = new File(saveDir, fileName);
+        // 与自动保存的加锁顺序一致：先日志状态，后索引
+        synchronized (journals) {
+            journals.remove(saveFile.getAbsolutePath());
+            journalFileOf(saveFile).delete();
+        }
+        synchronized (INDEX_LOCK) {
+            if (saveFile.exists() && !saveFile.delete()) return false;
+            Map<String, IndexEntry> index = readIndex(saveDir);
+            if (index != null && index.remove(fileName) != null) {
+                writeIndex(saveDir, index);
+            }
+        }
+        return true;
+    }
+
+    // 把旧格式的存档（合并走法日志后）重写为二进制格式，无法编码时保持原样。
+    // 持有日志锁重新读取，期间自动保存不会追加日志
+    private void migrate(File saveFile) {
+        if (!writesBinary()) return;
+        synchronized (journals) {
+            try {
+                byte[] snapshot = Files.readAllBytes(saveFile.toPath());
+                if (ArchiveCodec.isBinary(snapshot)) return;
+                GameArchiveData data = deserialize(snapshot);
+                if (data == null) return;
+                replayJournal(saveFile, snapshot, data);
+                if (ArchiveCodec.encode(data) != null && writeSnapshot(saveFile, data)) {
+                    System.out.println("存档已转换为二进制格式: " + saveFile.getName() + ", " + saveFile.length() + " 字节");
+                }
+            } catch (Exception e) {
+                System.err.println("转换存档格式失败: " + e.getMessage());
+            }
+        }
+    }
+
+    private static File[] listArchiveFiles(File saveDir) {
+        if (!saveDir.exists()) return null;
+        return saveDir.listFiles((dir, name) -> name.endsWith(".json") && (name.startsWith("save_") || name.startsWith("人机_")));
+    }
+
+    // 存档写入成功后更新索引中的对应条目；索引缺失时只写入这一条，其余条目在下次列出存档时补上
+    private void updateIndex(File saveFile, GameArchiveData data) {
+        File saveDir = saveFile.getParentFile();
+        synchronized (INDEX_LOCK) {
+            Map<String, IndexEntry> index = readIndex(saveDir);
+            if (index == null) index = new HashMap<>();
+            index.put(saveFile.getName(), IndexEntry.of(saveFile, data));
+            writeIndex(saveDir, index);
+        }
+    }
+
+    // 读取索引，文件不存在、版本不符或无法解密时返回 null
+    private Map<String, IndexEntry> readIndex(File saveDir) {
+        File indexFile = new File(saveDir, INDEX_FILE_NAME);
+        if (!indexFile.exists()) return null;
+        try {
+            String encryptedData = Files.readString(indexFile.toPath(), StandardCharsets.UTF_8).trim();
+            IndexFile indexData = createGson(false).fromJson(decrypt(encryptedData), IndexFile.class);
+            if (indexData == null || indexData.version != INDEX_VERSION || indexData.entries == null) return null;
+            Map<String, IndexEntry> index = new HashMap<>();
+            for (IndexEntry entry : indexData.entries) {
+                index.put(entry.fileName, entry);
+            }
+            return index;
+        } catch (Exception e) {
+            System.err.println("读取存档索引失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 先写临时文件再原子替换，写到一半出错时旧索引保持不变
+    private void writeIndex(File saveDir, Map<String, IndexEntry> index) {
+        IndexFile indexData = new IndexFile();
+        indexData.version = INDEX_VERSION;
+        indexData.entries = new ArrayList<>(index.values());
+        try {
+            writeAtomically(new File(saveDir, INDEX_FILE_NAME),
+                    encrypt(createGson(false).toJson(indexData)).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            System.err.println("写入存档索引失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读写存档 JSON 使用的 Gson
+     * 棋子在内存中使用字节编码，存档里仍然按 {"type": "帅", "color": "RED", "x": 4, "y": 9} 的格式保存，
+     * 新旧存档可以互相读取。
+     */
+    public static Gson createGson(boolean prettyPrinting) {
+        GsonBuilder builder = new GsonBuilder().registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter());
+        if (prettyPrinting) {
+            builder.setPrettyPrinting();
+        }
+        return builder.create();
+    }
+
+    // 棋子编码与存档中 type/color 字符串之间的转换
+    private static class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            if (piece == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type").value(piece.glyph());
+            out.name("color").value(piece.color());
+            out.name("x").value(piece.x);
+            out.name("y").value(piece.y);
+            out.endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String type = "";
+            String color = "";
+            int x = 0;
+            int y = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> type = in.nextString();
+                    case "color" -> color = in.nextString();
+                    case "x" -> x = in.nextInt();
+                    case "y" -> y = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChessPiece(type, color, x, y);
+        }
+    }
+
     // 存档数据结构类
     public static class GameArchiveData {
         public ChessPiece[] pieces;
@@ -176,17 +461,113 @@ public class GameArchiveManager {
         }
     }
 
+    // 索引文件的内容
+    private static class IndexFile {
+        int version;
+        List<IndexEntry> entries;
+    }
+
+    // 索引中一个存档的元数据，文件大小和修改时间用于判断索引是否过期
+    private static class IndexEntry {
+        String fileName;
+        long timestamp;
+        boolean aiGame;
+        String difficulty;
+        int moveCount;
+        String result;
+        String sideToMove;
+        long fileSize;
+        long lastModified;
+        // 走法日志的大小和修改时间，没有日志时为 0
+        long journalSize;
+        long journalModified;
+
+        static IndexEntry of(File file, GameArchiveData data) {
+            IndexEntry entry = new IndexEntry();
+            entry.fileName = file.getName();
+            entry.timestamp = data.lastMoveTimestamp;
+            entry.aiGame = entry.fileName.startsWith("人机_");
+            entry.difficulty = difficultyOf(entry.fileName);
+            entry.moveCount = data.moves != null ? data.moves.size() : 0;
+            entry.result = resultOf(data);
+            entry.sideToMove = data.currentPlayerColor;
+            entry.fileSize = file.length();
+            entry.lastModified = file.lastModified();
+            File journal = journalFileOf(file);
+            entry.journalSize = journal.length();
+            entry.journalModified = journal.lastModified();
+            return entry;
+        }
+
+        // 自动保存追加日志后也会更新索引；日志在别处被修改时视为过期
+        boolean matches(File file) {
+            File journal = journalFileOf(file);
+            return fileSize == file.length() && lastModified == file.lastModified()
+                    && journalSize == journal.length() && journalModified == journal.lastModified();
+        }
+
+        SaveFileInfo toSaveFileInfo() {
+            return new SaveFileInfo(fileName, timestamp, aiGame, difficulty, moveCount, result, sideToMove);
+        }
+    }
+
+    // 文件名 "人机_困难_时间戳.json" 中的难度，没有时返回 null
+    private static String difficultyOf(String fileName) {
+        String[] parts = fileName.split("_");
+        return parts.length == 3 && "人机".equals(parts[0]) ? parts[1] : null;
+    }
+
+    // 存档局面的结果：将帅被吃或走子方无子可走时对局已分胜负，困毙按本程序的规则判和
+    private static String resultOf(GameArchiveData data) {
+        if (data.pieces == null || data.currentPlayerColor == null) return RESULT_ONGOING;
+        Board board = Board.fromPieces(data.pieces);
+        if (board.kingSquare(Board.RED) == 0) return RESULT_BLACK_WIN;
+        if (board.kingSquare(Board.BLACK) == 0) return RESULT_RED_WIN;
+
+        int side = Board.sideOf(data.currentPlayerColor);
+        board.setSideToMove(side);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        for (int i = 0; i < count; i++) {
+            if (MoveGenerator.isLegal(board, Move.from(moves[i]), Move.to(moves[i]))) return RESULT_ONGOING;
+        }
+        if (!MoveGenerator.isInCheck(board, side)) return RESULT_DRAW;
+        return side == Board.RED ? RESULT_BLACK_WIN : RESULT_RED_WIN;
+    }
+
     public static class SaveFileInfo {
         private final String fileName;
         private final long timestamp;
+        private final boolean aiGame;
+        private final String difficulty;
+        private final int moveCount;
+        private final String result;
+        private final String sideToMove;
 
         public SaveFileInfo(String fileName, long timestamp) {
+            this(fileName, timestamp, fileName.startsWith("人机_"), difficultyOf(fileName), 0, RESULT_ONGOING, null);
+        }
+
+        public SaveFileInfo(String fileName, long timestamp, boolean aiGame, String difficulty,
+                            int moveCount, String result, String sideToMove) {
             this.fileName = fileName;
             this.timestamp = timestamp;
+            this.aiGame = aiGame;
+            this.difficulty = difficulty;
+            this.moveCount = moveCount;
+            this.result = result;
+            this.sideToMove = sideToMove;
         }
 
         public String getFileName() { return fileName; }
         public long getTimestamp() { return timestamp; }
+        public boolean isAIGame() { return aiGame; }
+        // 人机对局的难度，双人对局或旧文件名中没有难度时为 null
+        public String getDifficulty() { return difficulty; }
+        public int getMoveCount() { return moveCount; }
+        public String getResult() { return result; }
+        // 轮到走棋的一方（"RED" / "BLACK"）
+        public String getSideToMove() { return sideToMove; }
 
         public String getDisplayName() {
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -216,18 +597,180 @@ public class GameArchiveManager {
 
         // 创建存档数据对象
         GameArchiveData archiveData = new GameArchiveData(pieces, moves, currentPlayerColor);
+        return writeSnapshot(saveFile, archiveData);
+    }
+
+    /**
+     * 自动保存已有的存档
+     * 本次运行中写过该存档的快照之后，只把新增的走法（以及悔棋）作为记录追加到走法日志；
+     * 还没有写过快照、日志记录过多或悔棋退回到快照之前时，改为完整重写存档（压缩日志）。
+     */
+    public boolean autoSaveGame(String fileName, ChessPiece[] pieces, List<GameMove> moves, String currentPlayerColor) {
+        if (encryptionKeyBasis == null || encryptionKeyBasis.isEmpty()) {
+            System.err.println("存档失败：加密密钥基础 (密码哈希) 为空。");
+            return false;
+        }
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        String jsonText = gson.toJson(archiveData);
+        File saveFile = new File(getUserSaveDir(username), fileName);
+        synchronized (journals) {
+            JournalState state = journals.get(saveFile.getAbsolutePath());
+            if (state != null && saveFile.exists()) {
+                try {
+                    if (appendToJournal(state, moves, currentPlayerColor)) {
+                        // 日志的大小和修改时间变了，同时更新索引，列出存档时不必重新解密和重放
+                        updateIndex(saveFile, new GameArchiveData(pieces, moves, currentPlayerColor));
+                        return true;
+                    }
+                } catch (Exception e) {
+                    System.err.println("追加走法日志失败，改为完整保存: " + e.getMessage());
+                }
+            }
+            return updateGame(fileName, pieces, moves, currentPlayerColor);
+        }
+    }
+
+    // 快照已经包含全部走法：删除旧日志，记录快照状态，下次自动保存时再建立新日志
+    private void resetJournal(File saveFile, List<GameMove> moves) {
+        synchronized (journals) {
+            journalFileOf(saveFile).delete();
+            try {
+                byte[] snapshotHash = MoveJournal.sha256(Files.readAllBytes(saveFile.toPath()));
+                journals.put(saveFile.getAbsolutePath(), new JournalState(saveFile, snapshotHash, moves));
+            } catch (Exception e) {
+                journals.remove(saveFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * 把快照之后的走法变化追加到日志
+     * 从快照处开始比较已写入的走法和当前走法，找到第一处不同：之前的走法保留，
+     * 之后的已写入走法被悔棋撤销（记录为截断），再逐条追加当前多出来的走法。
+     *
+     * @return 是否已经写入；需要压缩时返回 false
+     */
+    private boolean appendToJournal(JournalState state, List<GameMove> moves, String currentPlayerColor) throws Exception {
+        List<GameMove> persisted = state.persistedMoves;
+        int snapshotMoves = state.snapshotMoves;
+        if (moves.size() < snapshotMoves
+                || (snapshotMoves > 0 && moves.get(snapshotMoves - 1) != persisted.get(snapshotMoves - 1))) {
+            return false; // 悔棋退回到了快照之前
+        }
+        int common = snapshotMoves;
+        while (common < persisted.size() && common < moves.size() && moves.get(common) == persisted.get(common)) {
+            common++;
+        }
+        boolean truncated = common < persisted.size();
+        int newRecords = moves.size() - common + (truncated && moves.size() == common ? 1 : 0);
+        if (newRecords == 0) return true;
+        int existingRecords = state.journal != null ? state.journal.records() : 0;
+        if (existingRecords + newRecords > JOURNAL_COMPACT_RECORDS) return false;
+
+        SecretKey key = ArchiveKeyService.getKey(username, encryptionKeyBasis);
+        if (state.journal == null) {
+            state.journal = MoveJournal.create(journalFileOf(state.saveFile).toPath(), key, state.snapshotHash);
+        }
+        Gson gson = createGson(false);
+        if (truncated && moves.size() == common) {
+            state.journal.append(gson.toJson(new JournalRecord(common, null, currentPlayerColor)).getBytes(StandardCharsets.UTF_8));
+        }
+        for (int i = common; i < moves.size(); i++) {
+            GameMove move = moves.get(i);
+            // 中间记录的走子方由走法推出，最后一条使用当前走子方
+            String side = i == moves.size() - 1 ? currentPlayerColor : ("RED".equals(move.pieceColor) ? "BLACK" : "RED");
+            state.journal.append(gson.toJson(new JournalRecord(i + 1, move, side)).getBytes(StandardCharsets.UTF_8));
+        }
+        state.persistedMoves = new ArrayList<>(moves);
+        return true;
+    }
 
-        try (FileWriter writer = new FileWriter(saveFile)) {
-            String encryptedData = encrypt(jsonText);
-            writer.write(encryptedData);
-            return true;
+    // 在快照数据上重放日志中的记录，日志不存在、不属于该快照或无法解密时保持快照不变
+    private void replayJournal(File saveFile, byte[] snapshot, GameArchiveData data) {
+        File journalFile = journalFileOf(saveFile);
+        if (!journalFile.exists()) return;
+        List<byte[]> payloads = new ArrayList<>();
+        try {
+            MoveJournal.open(journalFile.toPath(), ArchiveKeyService.getKey(username, encryptionKeyBasis),
+                    MoveJournal.sha256(snapshot), payloads);
         } catch (Exception e) {
-            System.err.println("保存或加密游戏数据时出错: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+            System.err.println("读取走法日志失败: " + e.getMessage());
+            return;
+        }
+        if (payloads.isEmpty()) return;
+
+        Gson gson = createGson(false);
+        List<GameMove> moves = data.moves != null ? new ArrayList<>(data.moves) : new ArrayList<>();
+        int snapshotMoves = moves.size();
+        String side = data.currentPlayerColor;
+        for (byte[] payload : payloads) {
+            JournalRecord record = gson.fromJson(new String(payload, StandardCharsets.UTF_8), JournalRecord.class);
+            int keep = record.move != null ? record.moveCount - 1 : record.moveCount;
+            if (keep < snapshotMoves || keep > moves.size()) break; // 与之前的记录接不上
+            moves.subList(keep, moves.size()).clear();
+            if (record.move != null) moves.add(record.move);
+            side = record.side;
+        }
+
+        ChessPiece[] pieces = data.pieces;
+        for (int i = snapshotMoves; i < moves.size(); i++) {
+            pieces = applyMove(pieces, moves.get(i));
+        }
+        data.pieces = pieces;
+        data.moves = moves;
+        data.currentPlayerColor = side;
+        if (!moves.isEmpty()) {
+            data.lastMoveTimestamp = moves.get(moves.size() - 1).timestamp;
+        }
+    }
+
+    // 在棋子数组上走一步，返回新的数组
+    private static ChessPiece[] applyMove(ChessPiece[] pieces, GameMove move) {
+        List<ChessPiece> result = new ArrayList<>(pieces.length);
+        for (ChessPiece piece : pieces) {
+            if (piece.x == move.toX && piece.y == move.toY) continue; // 被吃的棋子
+            if (piece.x == move.fromX && piece.y == move.fromY) {
+                result.add(new ChessPiece(piece.code, move.toX, move.toY));
+            } else {
+                result.add(piece);
+            }
+        }
+        return result.toArray(new ChessPiece[0]);
+    }
+
+    private static File journalFileOf(File saveFile) {
+        String name = saveFile.getName();
+        return new File(saveFile.getParentFile(), name.substring(0, name.length() - ".json".length()) + JOURNAL_SUFFIX);
+    }
+
+    // 一个存档的快照和日志状态
+    private static class JournalState {
+        final File saveFile;
+        final byte[] snapshotHash;
+        // 快照中的走法数
+        final int snapshotMoves;
+        // 快照加日志之后的全部走法（与界面中的走法对象相同，按引用比较）
+        List<GameMove> persistedMoves;
+        // 还没有追加过记录时为 null
+        MoveJournal journal;
+
+        JournalState(File saveFile, byte[] snapshotHash, List<GameMove> moves) {
+            this.saveFile = saveFile;
+            this.snapshotHash = snapshotHash;
+            this.persistedMoves = moves != null ? new ArrayList<>(moves) : new ArrayList<>();
+            this.snapshotMoves = persistedMoves.size();
+        }
+    }
+
+    // 日志记录：先把走法截断到 moveCount - 1 步（move 为 null 时截断到 moveCount 步），再追加 move
+    private static class JournalRecord {
+        int moveCount;
+        GameMove move;
+        String side;
+
+        JournalRecord(int moveCount, GameMove move, String side) {
+            this.moveCount = moveCount;
+            this.move = move;
+            this.side = side;
         }
     }
 }
\ No newline at end of file
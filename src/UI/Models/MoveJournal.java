@@ -0,0 +1,180 @@
+package UI.Models;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 走法日志文件：存档快照之后追加的记录
+ * 文件头：魔数 "XQJL"、版本、16 字节随机日志编号、快照文件内容的 SHA-256；
+ * 之后每条记录为 4 字节长度 + 12 字节 IV + AES-GCM 密文（含 16 字节认证标签）。
+ * 记录用存档密钥派生出的日志密钥加密，日志编号和记录序号作为附加认证数据，
+ * 记录被篡改、调换顺序或从别的日志中拼接过来都会认证失败。
+ * 读取时遇到第一条不完整或认证失败的记录（例如写到一半时程序退出）就停止，之后追加时从该位置覆盖。
+ * 快照被重写后文件头中的哈希对不上，旧日志整体作废。
+ */
+public class MoveJournal {
+
+    private static final byte[] MAGIC = {'X', 'Q', 'J', 'L'};
+    private static final int VERSION = 1;
+    private static final int ID_SIZE = 16;
+    private static final int HASH_SIZE = 32;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + ID_SIZE + HASH_SIZE;
+
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_SIZE = 12;
+    private static final int TAG_BITS = 128;
+    // 单条记录的上限，超过时视为损坏
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    // 日志密钥的派生标签，与存档本身的加密使用不同的密钥
+    private static final byte[] KEY_LABEL = "XiangQi move journal v1".getBytes(StandardCharsets.UTF_8);
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final Path path;
+    private final SecretKey key;
+    private final byte[] journalId;
+    // 最后一条有效记录的结束位置
+    private long length;
+    private int records;
+
+    private MoveJournal(Path path, SecretKey key, byte[] journalId, long length, int records) {
+        this.path = path;
+        this.key = key;
+        this.journalId = journalId;
+        this.length = length;
+        this.records = records;
+    }
+
+    /**
+     * 新建日志（覆盖已有的文件）
+     *
+     * @param archiveKey 存档密钥
+     * @param snapshotHash 对应快照文件的 SHA-256
+     */
+    public static MoveJournal create(Path path, SecretKey archiveKey, byte[] snapshotHash)
+            throws IOException, GeneralSecurityException {
+        byte[] journalId = new byte[ID_SIZE];
+        random.nextBytes(journalId);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put((byte) VERSION).put(journalId).put(snapshotHash);
+        Files.write(path, header.array());
+        return new MoveJournal(path, journalKey(archiveKey), journalId, HEADER_SIZE, 0);
+    }
+
+    /**
+     * 读取日志中的有效记录
+     *
+     * @param snapshotHash 当前快照文件的 SHA-256
+     * @param payloads 输出：各条记录的明文
+     * @return 可以继续追加的日志；文件不存在、格式不对或不属于这个快照时返回 null
+     */
+    public static MoveJournal open(Path path, SecretKey archiveKey, byte[] snapshotHash, List<byte[]> payloads)
+            throws IOException, GeneralSecurityException {
+        if (!Files.exists(path)) return null;
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (data.remaining() < HEADER_SIZE) return null;
+        byte[] magic = new byte[MAGIC.length];
+        data.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || data.get() != VERSION) return null;
+        byte[] journalId = new byte[ID_SIZE];
+        data.get(journalId);
+        byte[] hash = new byte[HASH_SIZE];
+        data.get(hash);
+        if (!MessageDigest.isEqual(hash, snapshotHash)) return null;
+
+        SecretKey key = journalKey(archiveKey);
+        MoveJournal journal = new MoveJournal(path, key, journalId, HEADER_SIZE, 0);
+        while (data.remaining() >= 4) {
+            int size = data.getInt();
+            if (size < IV_SIZE + TAG_BITS / 8 || size > MAX_RECORD_SIZE || size > data.remaining()) break;
+            byte[] record = new byte[size];
+            data.get(record);
+            byte[] payload;
+            try {
+                payload = journal.decrypt(record, journal.records);
+            } catch (GeneralSecurityException e) {
+                break; // 认证失败，之后的记录都不可信
+            }
+            payloads.add(payload);
+            journal.records++;
+            journal.length = data.position();
+        }
+        return journal;
+    }
+
+    /**
+     * 追加一条记录
+     */
+    public void append(byte[] payload) throws IOException, GeneralSecurityException {
+        byte[] record = encrypt(payload, records);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // 丢弃上次写到一半的记录
+            if (channel.size() != length) {
+                channel.truncate(length);
+            }
+            channel.position(length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        length += 4 + record.length;
+        records++;
+    }
+
+    public int records() {
+        return records;
+    }
+
+    public static byte[] sha256(byte[] data) throws GeneralSecurityException {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+
+    private byte[] encrypt(byte[] payload, int sequence) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(associatedData(sequence));
+        byte[] ciphertext = cipher.doFinal(payload);
+        byte[] record = new byte[IV_SIZE + ciphertext.length];
+        System.arraycopy(iv, 0, record, 0, IV_SIZE);
+        System.arraycopy(ciphertext, 0, record, IV_SIZE, ciphertext.length);
+        return record;
+    }
+
+    private byte[] decrypt(byte[] record, int sequence) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, record, 0, IV_SIZE));
+        cipher.updateAAD(associatedData(sequence));
+        return cipher.doFinal(record, IV_SIZE, record.length - IV_SIZE);
+    }
+
+    // 附加认证数据：日志编号 + 记录序号
+    private byte[] associatedData(int sequence) {
+        return ByteBuffer.allocate(ID_SIZE + 4).put(journalId).putInt(sequence).array();
+    }
+
+    // 日志密钥 = HMAC-SHA256(存档密钥, 标签) 的前 16 字节
+    private static SecretKey journalKey(SecretKey archiveKey) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(archiveKey.getEncoded(), "HmacSHA256"));
+        return new SecretKeySpec(Arrays.copyOf(mac.doFinal(KEY_LABEL), 16), "AES");
+    }
+}